@@ -191,7 +191,11 @@ func (s *SmartContract) CreateReceta(ctx contractapi.TransactionContextInterface
 	if err != nil {
 		return err
 	}
-	return ctx.GetStub().PutState(receta.ID, recetaJSON)
+	err = ctx.GetStub().PutState(receta.ID, recetaJSON)
+	if err != nil {
+		return err
+	}
+	return ctx.GetStub().SetEvent("CreateReceta", recetaJSON)
 }
 
 func (s *SmartContract) FirmarReceta(ctx contractapi.TransactionContextInterface, recetaID string, firma string) error {
@@ -223,7 +227,10 @@ func (s *SmartContract) FirmarReceta(ctx contractapi.TransactionContextInterface
 	if err != nil {
 		return fmt.Errorf("error al serializar la receta firmada: %v", err)
 	}
-	return ctx.GetStub().PutState(recetaID, updatedRecetaJSON)
+	if err := ctx.GetStub().PutState(recetaID, updatedRecetaJSON); err != nil {
+		return err
+	}
+	return ctx.GetStub().SetEvent("FirmarReceta", updatedRecetaJSON)
 }
 
 func (s *SmartContract) EntregarReceta(ctx contractapi.TransactionContextInterface, recetaID string) error {
@@ -253,7 +260,10 @@ func (s *SmartContract) EntregarReceta(ctx contractapi.TransactionContextInterfa
 	if err != nil {
 		return fmt.Errorf("error al serializar la receta modificada: %v", err)
 	}
-	return ctx.GetStub().PutState(recetaID, updatedRecetaJSON)
+	if err := ctx.GetStub().PutState(recetaID, updatedRecetaJSON); err != nil {
+		return err
+	}
+	return ctx.GetStub().SetEvent("EntregarReceta", updatedRecetaJSON)
 }
 
 func (s *SmartContract) ReadReceta(ctx contractapi.TransactionContextInterface, id string) (*Receta, error) {
@@ -304,7 +314,10 @@ func (s *SmartContract) DeleteReceta(ctx contractapi.TransactionContextInterface
 		return fmt.Errorf("error al serializar la receta firmada: %v", err)
 	}
 
-	return ctx.GetStub().PutState(recetaID, updatedRecetaJSON)
+	if err := ctx.GetStub().PutState(recetaID, updatedRecetaJSON); err != nil {
+		return err
+	}
+	return ctx.GetStub().SetEvent("DeleteReceta", updatedRecetaJSON)
 }
 
 func (s *SmartContract) RecetaExists(ctx contractapi.TransactionContextInterface, id string) (bool, error) {
@@ -334,6 +347,11 @@ func (s *SmartContract) TransferirReceta(ctx contractapi.TransactionContextInter
 		return "", err
 	}
 
+	err = ctx.GetStub().SetEvent("TransferirReceta", recetaJSON)
+	if err != nil {
+		return "", err
+	}
+
 	return oldOwner, nil
 }
 
@@ -457,6 +475,73 @@ func (s *SmartContract) GetRecetasPorDniYEstadosPaginado(
 	return resultado, nil
 }
 
+// GetRecetasPaginado recorre todas las recetas no canceladas del ledger, una pagina por llamada.
+func (s *SmartContract) GetRecetasPaginado(
+	ctx contractapi.TransactionContextInterface,
+	pageSize int32,
+	bookmark string,
+) (*ResultadoPaginado, error) {
+	selector := map[string]interface{}{
+		"vaccinateCode": map[string]interface{}{
+			"$exists": false,
+		},
+		"status": map[string]interface{}{
+			"$ne": string(EstadoCancelled),
+		},
+	}
+	return recetasPaginadas(ctx, selector, pageSize, bookmark)
+}
+
+// GetRecetasPaginadoCompleto recorre todas las recetas del ledger, canceladas incluidas, una pagina por llamada.
+func (s *SmartContract) GetRecetasPaginadoCompleto(
+	ctx contractapi.TransactionContextInterface,
+	pageSize int32,
+	bookmark string,
+) (*ResultadoPaginado, error) {
+	selector := map[string]interface{}{
+		"vaccinateCode": map[string]interface{}{
+			"$exists": false,
+		},
+	}
+	return recetasPaginadas(ctx, selector, pageSize, bookmark)
+}
+
+func recetasPaginadas(
+	ctx contractapi.TransactionContextInterface,
+	selector map[string]interface{},
+	pageSize int32,
+	bookmark string,
+) (*ResultadoPaginado, error) {
+	query := map[string]interface{}{
+		"selector": selector,
+	}
+	queryBytes, err := json.Marshal(query)
+	if err != nil {
+		return nil, fmt.Errorf("error al generar la query: %v", err)
+	}
+	resultsIterator, metadata, err := ctx.GetStub().GetQueryResultWithPagination(string(queryBytes), pageSize, bookmark)
+	if err != nil {
+		return nil, fmt.Errorf("error al ejecutar la query: %v", err)
+	}
+	defer resultsIterator.Close()
+	recetas := []*Receta{}
+	for resultsIterator.HasNext() {
+		response, iterErr := resultsIterator.Next()
+		if iterErr != nil {
+			return nil, iterErr
+		}
+		var receta Receta
+		if err := json.Unmarshal(response.Value, &receta); err != nil {
+			return nil, fmt.Errorf("error al parsear receta: %v", err)
+		}
+		recetas = append(recetas, &receta)
+	}
+	return &ResultadoPaginado{
+		Recetas:  recetas,
+		Bookmark: metadata.Bookmark,
+	}, nil
+}
+
 func (s *SmartContract) CreateVacuna(ctx contractapi.TransactionContextInterface, vacuna Vacuna) error {
 	exists, err := s.VacunaExists(ctx, vacuna.ID)
 	if err != nil {
@@ -470,7 +555,11 @@ func (s *SmartContract) CreateVacuna(ctx contractapi.TransactionContextInterface
 		return err
 	}
 
-	return ctx.GetStub().PutState(vacuna.ID, vacunaJSON)
+	err = ctx.GetStub().PutState(vacuna.ID, vacunaJSON)
+	if err != nil {
+		return err
+	}
+	return ctx.GetStub().SetEvent("CreateVacuna", vacunaJSON)
 }
 
 func (s *SmartContract) VacunaExists(ctx contractapi.TransactionContextInterface, id string) (bool, error) {
@@ -580,6 +669,46 @@ func (s *SmartContract) GetVacunasPorDniPaginado(
 	return resultado, nil
 }
 
+// GetVacunasPaginado recorre todas las vacunas del ledger, una pagina por llamada.
+func (s *SmartContract) GetVacunasPaginado(
+	ctx contractapi.TransactionContextInterface,
+	pageSize int32,
+	bookmark string,
+) (*ResultadoPaginadoVacunas, error) {
+	query := map[string]interface{}{
+		"selector": map[string]interface{}{
+			"vaccinateCode": map[string]interface{}{
+				"$exists": true,
+			},
+		},
+	}
+	queryBytes, err := json.Marshal(query)
+	if err != nil {
+		return nil, fmt.Errorf("error al generar la query: %v", err)
+	}
+	resultsIterator, metadata, err := ctx.GetStub().GetQueryResultWithPagination(string(queryBytes), pageSize, bookmark)
+	if err != nil {
+		return nil, fmt.Errorf("error al ejecutar la query: %v", err)
+	}
+	defer resultsIterator.Close()
+	vacunas := []*Vacuna{}
+	for resultsIterator.HasNext() {
+		response, iterErr := resultsIterator.Next()
+		if iterErr != nil {
+			return nil, iterErr
+		}
+		var vacuna Vacuna
+		if err := json.Unmarshal(response.Value, &vacuna); err != nil {
+			return nil, fmt.Errorf("error al parsear vacuna: %v", err)
+		}
+		vacunas = append(vacunas, &vacuna)
+	}
+	return &ResultadoPaginadoVacunas{
+		Vacunas:  vacunas,
+		Bookmark: metadata.Bookmark,
+	}, nil
+}
+
 func (s *SmartContract) GetVacunasPorDniYEstado(ctx contractapi.TransactionContextInterface, dni string, estado string) ([]*Vacuna, error) {
 	if dni == "" {
 		return nil, fmt.Errorf("el dni es obligatorio")
@@ -0,0 +1,46 @@
+package com.code.hyperledger.Utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashingBenchmark {
+
+    private String input;
+    private byte[] digest;
+
+    @Setup
+    public void setup() throws Exception {
+        // mismo formato que el ID armado en RecetaController.crear: dni + LocalDateTime
+        input = "30123456" + LocalDateTime.of(2024, 5, 17, 10, 30, 15, 123456789);
+        digest = MessageDigest.getInstance("SHA-256").digest(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String sha256() {
+        return Hashing.sha256(input);
+    }
+
+    @Benchmark
+    public String bytesToHex() {
+        return Hashing.bytesToHex(digest);
+    }
+}
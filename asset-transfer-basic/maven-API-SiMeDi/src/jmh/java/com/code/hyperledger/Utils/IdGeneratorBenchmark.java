@@ -0,0 +1,99 @@
+package com.code.hyperledger.Utils;
+
+import com.code.hyperledger.configs.IdConfigProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID de crear: el armado anterior (getInstance por llamada, hex con un String
+ * por byte) contra IdGenerator, con uno y con varios hilos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGeneratorBenchmark {
+
+    private static final String DNI = "30123456";
+
+    private IdGenerator generator;
+    private byte[] digest;
+
+    @Setup
+    public void setup() throws Exception {
+        IdConfigProperties config = new IdConfigProperties();
+        config.setNodeId("bench");
+        generator = new IdGenerator(config);
+        digest = MessageDigest.getInstance("SHA-256").digest(DNI.getBytes());
+    }
+
+    @Benchmark
+    public String anterior() {
+        return legacySha256(DNI + LocalDateTime.now());
+    }
+
+    @Benchmark
+    public String nextId() {
+        return generator.nextId(DNI);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String anterior8Hilos() {
+        return legacySha256(DNI + LocalDateTime.now());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String nextId8Hilos() {
+        return generator.nextId(DNI);
+    }
+
+    @Benchmark
+    public String hexAnterior() {
+        return legacyBytesToHex(digest);
+    }
+
+    @Benchmark
+    public String hex() {
+        return Hashing.bytesToHex(digest);
+    }
+
+    // copia de la implementacion anterior de Hashing, como referencia
+    private static String legacySha256(String input) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return legacyBytesToHex(md.digest(input.getBytes()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String legacyBytesToHex(byte[] hash) {
+        StringBuilder hexString = new StringBuilder();
+        for (byte b : hash) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package com.code.hyperledger.benchmarks;
+
+import com.code.hyperledger.Utils.Hashing;
+import com.code.hyperledger.models.Receta;
+import com.code.hyperledger.models.RecetaDto;
+import com.code.hyperledger.models.ResultadoPaginado;
+import com.code.hyperledger.models.Vacuna;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos con tamanos parecidos a los que devuelve el chaincode en produccion.
+ */
+public final class Fixtures {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Fixtures() {
+    }
+
+    public static Receta receta(int i) {
+        String dni = String.valueOf(30000000 + i);
+        Receta receta = new Receta();
+        receta.setId(Hashing.sha256(dni + "2024-05-17T10:30:15.123456789"));
+        receta.setIdentifier("RX-2024-" + String.format("%06d", i));
+        receta.setOwner("Hospital General de Agudos Dr. Cosme Argerich");
+        receta.setPrescripcionAnteriorId("");
+        receta.setStatus(i % 3 == 0 ? "completed" : "active");
+        receta.setStatusChange("2024-05-17T10:30:15");
+        receta.setPrioridad("routine");
+        receta.setMedicacion("Amoxicilina 500 mg comprimidos recubiertos x 21");
+        receta.setRazon("Faringoamigdalitis aguda bacteriana");
+        receta.setNotas("Tomar con abundante agua, preferentemente despues de las comidas. "
+                + "Suspender y consultar ante la aparicion de erupcion cutanea o diarrea persistente.");
+        receta.setPeriodoDeTratamiento("7 dias");
+        receta.setInstruccionesTratamiento("1 comprimido cada 8 horas");
+        receta.setPeriodoDeValidez("30 dias");
+        receta.setPatientDocumentNumber(dni);
+        receta.setFechaDeAutorizacion("2024-05-17");
+        receta.setCantidad("21");
+        receta.setExpectedSupplyDuration("2024-05-24");
+        receta.setMatricula("MN 123456");
+        receta.setPractitioner("Dra. Maria Fernanda Gonzalez");
+        receta.setPractitionerDocumentNumber("25123456");
+        receta.setSignature("MEUCIQDx7Vb3v0cF2l5o4o0q6m1m3Y3b0WcZy2bF5Jp8q9u9sQIgV8o4pYzq3n6r2c1Zq0eY5m7x4fQw9a2b3c4d5e6f7g8=");
+        return receta;
+    }
+
+    public static Vacuna vacuna(int i) {
+        String dni = String.valueOf(30000000 + i);
+        Vacuna vacuna = new Vacuna();
+        vacuna.setId(Hashing.sha256(dni + "2024-05-17T10:30:15.123456789"));
+        vacuna.setIdentifier("VAC-2024-" + String.format("%06d", i));
+        vacuna.setStatus("completed");
+        vacuna.setStatusChange("2024-05-17T10:30:15");
+        vacuna.setStatusReason("");
+        vacuna.setVaccinateCode("J07BX03");
+        vacuna.setAdministradedProduct("Vacuna antigripal trivalente 2024 - dosis adulto 0,5 ml");
+        vacuna.setManufacturer("Sanofi Pasteur");
+        vacuna.setLotNumber("U7835AB");
+        vacuna.setExpirationDate("2025-06-30");
+        vacuna.setPatientDocumentNumber(dni);
+        vacuna.setReactions("Sin reacciones adversas registradas");
+        vacuna.setMatricula("MN 654321");
+        vacuna.setPractitioner("Lic. Juan Pablo Martinez");
+        vacuna.setPractitionerDocumentNumber("28123456");
+        return vacuna;
+    }
+
+    public static List<Receta> recetas(int size) {
+        List<Receta> recetas = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            recetas.add(receta(i));
+        }
+        return recetas;
+    }
+
+    public static List<Vacuna> vacunas(int size) {
+        List<Vacuna> vacunas = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            vacunas.add(vacuna(i));
+        }
+        return vacunas;
+    }
+
+    public static byte[] json(Object value) {
+        try {
+            return MAPPER.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Mismo formato que GetRecetasPorDniYEstadosPaginado.
+     */
+    public static byte[] paginaRecetas(int size) {
+        List<RecetaDto> componentes = new ArrayList<>(size);
+        for (Receta receta : recetas(size)) {
+            componentes.add(MAPPER.convertValue(receta, RecetaDto.class));
+        }
+        return json(new ResultadoPaginado<>(componentes,
+                "g1AAAAB4eJzLYWBgYMpgSmHgKy5JLCrJTq2MT8lPzkzJBYprGxgYmRgZAxXAFOXAxBhAmBkoNQ1FbA"));
+    }
+
+    /**
+     * Mismo formato que GetVacunasPorDniPaginado.
+     */
+    public static byte[] paginaVacunas(int size) {
+        return json(new ResultadoPaginado<>(vacunas(size),
+                "g1AAAAB4eJzLYWBgYMpgSmHgKy5JLCrJTq2MT8lPzkzJBYprGxgYmRgZAxXAFOXAxBhAmBkoNQ1FbA"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.code.hyperledger.controllers;
+
+import com.code.hyperledger.Utils.IdGenerator;
+import com.code.hyperledger.configs.IdConfigProperties;
+import com.code.hyperledger.benchmarks.Fixtures;
+import com.code.hyperledger.models.Receta;
+import com.code.hyperledger.models.RecetaDto;
+import com.code.hyperledger.models.Vacuna;
+import com.code.hyperledger.models.VacunaDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trabajo local de los controllers: mapeo a DTO y armado del ID en crear.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ControllerBenchmark {
+
+    private Receta receta;
+    private Vacuna vacuna;
+    private List<Receta> recetas;
+    private IdGenerator idGenerator;
+
+    @Setup
+    public void setup() {
+        idGenerator = new IdGenerator(new IdConfigProperties());
+        receta = Fixtures.receta(1);
+        vacuna = Fixtures.vacuna(1);
+        recetas = Fixtures.recetas(100);
+    }
+
+    @Benchmark
+    public RecetaDto recetaMapToDto() {
+        return RecetaController.mapToDto(receta);
+    }
+
+    @Benchmark
+    public VacunaDto vacunaMapToDto() {
+        return VacunaController.mapToDto(vacuna);
+    }
+
+    @Benchmark
+    public List<RecetaDto> recetasMapToDto100() {
+        List<RecetaDto> dtos = new ArrayList<>(recetas.size());
+        for (Receta r : recetas) {
+            dtos.add(RecetaController.mapToDto(r));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public String crearId() {
+        // igual que RecetaController.crear / VacunaController.crearVacuna
+        return idGenerator.nextId(receta.getPatientDocumentNumber());
+    }
+}
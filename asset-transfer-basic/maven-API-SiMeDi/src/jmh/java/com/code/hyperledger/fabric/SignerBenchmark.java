@@ -0,0 +1,81 @@
+package com.code.hyperledger.fabric;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hyperledger.fabric.client.identity.Signer;
+import org.hyperledger.fabric.client.identity.Signers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Firmas por segundo con una clave P-256 como la de las identidades de
+ * Fabric: el signer de fabric-gateway, el que reusa la Signature por hilo y
+ * el mismo detras del pool de firma. Con -t 1 da firmas por segundo por
+ * nucleo; con -t igual a los nucleos (o mas, como muchos requests a la vez)
+ * muestra hasta donde escala una instancia antes de que firmar sea el limite.
+ *   ./mvnw -P jmh verify -Djmh.include=SignerBenchmark -Djmh.args="-t 8"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignerBenchmark {
+
+    private byte[] digest;
+    private Signer gateway;
+    private Signer cached;
+    private Signer pooled;
+    private SigningPool signingPool;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        // el Gateway firma el SHA-256 de la propuesta o de la transaccion serializada
+        digest = MessageDigest.getInstance("SHA-256")
+                .digest("propuesta CreateReceta con una receta de ~1 KB".getBytes(StandardCharsets.UTF_8));
+        gateway = Signers.newPrivateKeySigner(keyPair.getPrivate());
+        cached = EcdsaSigner.of(keyPair.getPrivate());
+        signingPool = new SigningPool(0, 10000, new FabricMetrics(new SimpleMeterRegistry()));
+        pooled = signingPool.wrap(cached);
+    }
+
+    @TearDown
+    public void tearDown() {
+        signingPool.close();
+    }
+
+    @Benchmark
+    public byte[] gatewaySigner() throws GeneralSecurityException {
+        return gateway.sign(digest);
+    }
+
+    @Benchmark
+    public byte[] cachedSigner() throws GeneralSecurityException {
+        return cached.sign(digest);
+    }
+
+    @Benchmark
+    public byte[] pooledSigner() throws GeneralSecurityException {
+        return pooled.sign(digest);
+    }
+}
@@ -0,0 +1,61 @@
+package com.code.hyperledger.services;
+
+import com.code.hyperledger.benchmarks.Fixtures;
+import com.code.hyperledger.models.Receta;
+import com.code.hyperledger.models.Vacuna;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecturas individuales (ReadReceta / ReadVacuna). Los servicios crean un
+ * ObjectMapper por llamada; la variante "Compartido" muestra cuanto cuesta eso.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeserializacionBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] receta;
+    private byte[] vacuna;
+
+    @Setup
+    public void setup() {
+        receta = Fixtures.json(Fixtures.receta(1));
+        vacuna = Fixtures.json(Fixtures.vacuna(1));
+    }
+
+    @Benchmark
+    public Receta receta() throws Exception {
+        return new ObjectMapper().readValue(receta, Receta.class);
+    }
+
+    @Benchmark
+    public Receta recetaMapperCompartido() throws Exception {
+        return mapper.readValue(receta, Receta.class);
+    }
+
+    @Benchmark
+    public Vacuna vacuna() throws Exception {
+        return new ObjectMapper().readValue(vacuna, Vacuna.class);
+    }
+
+    @Benchmark
+    public Vacuna vacunaMapperCompartido() throws Exception {
+        return mapper.readValue(vacuna, Vacuna.class);
+    }
+}
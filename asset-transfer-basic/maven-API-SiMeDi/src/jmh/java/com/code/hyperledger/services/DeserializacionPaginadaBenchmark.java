@@ -0,0 +1,91 @@
+package com.code.hyperledger.services;
+
+import com.code.hyperledger.Utils.JsonPassthrough;
+import com.code.hyperledger.benchmarks.Fixtures;
+import com.code.hyperledger.models.Receta;
+import com.code.hyperledger.models.RecetaDto;
+import com.code.hyperledger.models.ResultadoPaginado;
+import com.code.hyperledger.models.Vacuna;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listados y paginas, replicando lo que hacen obtenerRecetasPorIds y
+ * obtenerRecetasPorDniYEstadoPaginado / obtenerVacunasPorDniPaginado, y sus
+ * variantes passthrough (que ademas se ahorran volver a serializar).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeserializacionPaginadaBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int size;
+
+    private byte[] recetas;
+    private byte[] paginaRecetas;
+    private byte[] paginaVacunas;
+    private JsonPassthrough recetasJson;
+    private JsonPassthrough vacunasJson;
+
+    @Setup
+    public void setup() {
+        recetas = Fixtures.json(Fixtures.recetas(size));
+        paginaRecetas = Fixtures.paginaRecetas(size);
+        paginaVacunas = Fixtures.paginaVacunas(size);
+        recetasJson = JsonPassthrough.of(new ObjectMapper(), RecetaDto.class);
+        vacunasJson = JsonPassthrough.of(new ObjectMapper(), Vacuna.class);
+    }
+
+    @Benchmark
+    public List<Receta> listaRecetas() throws Exception {
+        return new ObjectMapper().readValue(recetas,
+                new ObjectMapper().getTypeFactory().constructCollectionType(List.class, Receta.class));
+    }
+
+    @Benchmark
+    public ResultadoPaginado<RecetaDto> paginaRecetas() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JavaType tipo = mapper.getTypeFactory().constructParametricType(ResultadoPaginado.class, RecetaDto.class);
+        return mapper.readValue(paginaRecetas, tipo);
+    }
+
+    @Benchmark
+    public ResultadoPaginado<Vacuna> paginaVacunas() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        JavaType tipo = mapper.getTypeFactory().constructParametricType(ResultadoPaginado.class, Vacuna.class);
+        return mapper.readValue(paginaVacunas, tipo);
+    }
+
+    @Benchmark
+    public byte[] listaRecetasPassthrough() throws Exception {
+        return recetasJson.lista(recetas);
+    }
+
+    @Benchmark
+    public byte[] paginaRecetasPassthrough() throws Exception {
+        return recetasJson.pagina(paginaRecetas);
+    }
+
+    @Benchmark
+    public byte[] paginaVacunasPassthrough() throws Exception {
+        return vacunasJson.pagina(paginaVacunas);
+    }
+}
@@ -0,0 +1,66 @@
+package com.code.hyperledger.tracing;
+
+import com.code.hyperledger.configs.TracingConfigProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de las trazas en un request con un submit: span del request mas
+ * transaccion, propuesta, endorse, submit y estado de commit, todo en el
+ * mismo hilo, exportando al buffer en memoria.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TracingBenchmark {
+
+    @Param({ "0", "0.01", "1" })
+    public double sampleRate;
+
+    private Tracer tracer;
+
+    @Setup
+    public void setup() {
+        TracingConfigProperties config = new TracingConfigProperties();
+        config.setSampleRate(sampleRate);
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("memory", new InMemorySpanExporter(10000));
+        tracer = new Tracer(config, beans.getBeanProvider(SpanExporter.class));
+    }
+
+    @Benchmark
+    public Span submit() {
+        Span request = tracer.startRequest("POST /recetas/crear", null);
+        try (TraceContext.Scope scope = TraceContext.use(request)) {
+            request.tag("http.method", "POST");
+            Span transaction = tracer.startSpan("fabric.transaction");
+            try (TraceContext.Scope inner = TraceContext.use(transaction)) {
+                transaction.tag(Tracer.FUNCTION, "CreateReceta");
+                tracer.inSpan("fabric.proposal", span -> span.tag(Tracer.TX_ID, "9cd928fb73b54beab57c55714a41adb7"));
+                tracer.inSpan("fabric.endorse", span -> span.tag(Tracer.TX_ID, "9cd928fb73b54beab57c55714a41adb7"));
+                tracer.inSpan("fabric.submit", span -> span.tag(Tracer.TX_ID, "9cd928fb73b54beab57c55714a41adb7"));
+            } finally {
+                transaction.end();
+            }
+            tracer.inSpan("fabric.commitStatus", span -> span.tag(Tracer.TX_ID, "9cd928fb73b54beab57c55714a41adb7"));
+        } finally {
+            request.end();
+        }
+        return request;
+    }
+}
@@ -4,7 +4,15 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import com.code.hyperledger.configs.BulkheadConfigProperties;
+import com.code.hyperledger.configs.CacheConfigProperties;
 import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.configs.IdConfigProperties;
+import com.code.hyperledger.configs.PassthroughConfigProperties;
+import com.code.hyperledger.configs.QuotaConfigProperties;
+import com.code.hyperledger.configs.ReadModelConfigProperties;
+import com.code.hyperledger.configs.StreamConfigProperties;
+import com.code.hyperledger.configs.TracingConfigProperties;
 import com.code.hyperledger.models.Receta;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -34,7 +42,10 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
-@EnableConfigurationProperties(FabricConfigProperties.class)
+@EnableConfigurationProperties({ FabricConfigProperties.class, CacheConfigProperties.class,
+		BulkheadConfigProperties.class, IdConfigProperties.class, ReadModelConfigProperties.class,
+		PassthroughConfigProperties.class, QuotaConfigProperties.class, TracingConfigProperties.class,
+		StreamConfigProperties.class })
 @SpringBootApplication
 public class App {
 	public static void main(final String[] args) throws Exception {
@@ -1,33 +1,52 @@
 package com.code.hyperledger.Utils;
 
+import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.security.MessageDigest;
 
 public class Hashing {
-        public static String sha256(String input) {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // MessageDigest no es thread-safe: una instancia por hilo en lugar de una por llamada
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
         try {
-            // Crear una instancia de MessageDigest para SHA-256
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            
-            // Calcular el hash
-            byte[] encodedhash = digest.digest(input.getBytes());
-
-            // Convertir el hash a una representación hexadecimal
-            return bytesToHex(encodedhash);
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
+    });
+
+        public static String sha256(String input) {
+        // Calcular el hash
+        byte[] encodedhash = sha256Digest().digest(input.getBytes(StandardCharsets.UTF_8));
+
+        // Convertir el hash a una representación hexadecimal
+        return bytesToHex(encodedhash);
+    }
+
+    /**
+     * SHA-256 en hexadecimal de los bytes tal como vienen, sin pasar por String.
+     */
+    public static String sha256(byte[] input) {
+        return bytesToHex(sha256Digest().digest(input));
+    }
+
+    /**
+     * El digest SHA-256 del hilo actual, vacio y listo para usar.
+     */
+    static MessageDigest sha256Digest() {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return digest;
     }
 
-    private static String bytesToHex(byte[] hash) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : hash) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
+    static String bytesToHex(byte[] hash) {
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
         }
-        return hexString.toString();
+        return new String(hex);
     }
 }
@@ -0,0 +1,63 @@
+package com.code.hyperledger.Utils;
+
+import com.code.hyperledger.configs.IdConfigProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IDs de recetas y vacunas. Cada ID es el SHA-256 (64 caracteres hex, como
+ * antes) de nodo + arranque + contador + hora + dni: el par nodo/contador no
+ * se repite aunque dos pedidos del mismo paciente lleguen en el mismo instante
+ * o en instancias distintas de la API.
+ */
+@Component
+public class IdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGenerator.class);
+
+    private static final long START = System.currentTimeMillis();
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[24]);
+
+    private final byte[] node;
+    private final AtomicLong counter = new AtomicLong();
+
+    public IdGenerator(IdConfigProperties config) {
+        String nodeId = config.getNodeId();
+        if (nodeId == null || nodeId.isEmpty()) {
+            byte[] random = new byte[8];
+            new SecureRandom().nextBytes(random);
+            nodeId = Hashing.bytesToHex(random);
+            logger.info("ids.nodeId no configurado, se usa {}", nodeId);
+        }
+        this.node = nodeId.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String nextId(String dni) {
+        byte[] scratch = SCRATCH.get();
+        // el arranque distingue reinicios del mismo nodo, el contador los IDs dentro de la misma ejecucion
+        putLong(scratch, 0, START);
+        putLong(scratch, 8, counter.incrementAndGet());
+        putLong(scratch, 16, System.currentTimeMillis());
+
+        MessageDigest digest = Hashing.sha256Digest();
+        digest.update(node);
+        digest.update(scratch);
+        if (dni != null) {
+            digest.update(dni.getBytes(StandardCharsets.UTF_8));
+        }
+        return Hashing.bytesToHex(digest.digest());
+    }
+
+    private static void putLong(byte[] buffer, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            buffer[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+}
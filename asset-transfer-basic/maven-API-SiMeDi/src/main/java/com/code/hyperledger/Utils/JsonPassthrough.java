@@ -0,0 +1,295 @@
+package com.code.hyperledger.Utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respuestas del chaincode que se devuelven tal cual, sin armar objetos. Una
+ * pasada con el parser de streaming valida que cada registro tenga exactamente
+ * los campos del modelo y que sean valores simples; si es asi se devuelve el
+ * mismo arreglo que vino del peer. Si sobran o faltan campos se reescribe:
+ * los de mas se descartan y los que faltan van en null, como al serializar
+ * el modelo. El orden de los campos es el del chaincode.
+ */
+public class JsonPassthrough {
+
+    private final JsonFactory factory;
+    private final String[] campos;
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final long completo;
+
+    public JsonPassthrough(JsonFactory factory, List<String> campos) {
+        if (campos.size() > 64) {
+            throw new IllegalArgumentException("Demasiados campos para el passthrough: " + campos.size());
+        }
+        this.factory = factory;
+        this.campos = campos.toArray(new String[0]);
+        for (int i = 0; i < this.campos.length; i++) {
+            indices.put(this.campos[i], i);
+        }
+        this.completo = this.campos.length == 64 ? -1L : (1L << this.campos.length) - 1;
+    }
+
+    /**
+     * Con los campos que escribe Jackson para ese modelo.
+     */
+    public static JsonPassthrough of(ObjectMapper objectMapper, Class<?> modelo) {
+        List<String> campos = new ArrayList<>();
+        for (BeanPropertyDefinition propiedad : objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(modelo)).findProperties()) {
+            if (propiedad.couldSerialize()) {
+                campos.add(propiedad.getName());
+            }
+        }
+        return new JsonPassthrough(objectMapper.getFactory(), campos);
+    }
+
+    /**
+     * Un registro: {...}.
+     */
+    public byte[] registro(byte[] json) throws IOException {
+        return pasar(json, Forma.REGISTRO);
+    }
+
+    /**
+     * Una lista de registros: [...]. Una respuesta vacia o null es la lista vacia.
+     */
+    public byte[] lista(byte[] json) throws IOException {
+        if (json == null || json.length == 0) {
+            return new byte[] { '[', ']' };
+        }
+        return pasar(json, Forma.LISTA);
+    }
+
+    /**
+     * Una pagina: {"componentes": [...], "bookmark": "..."}.
+     */
+    public byte[] pagina(byte[] json) throws IOException {
+        return pasar(json, Forma.PAGINA);
+    }
+
+    /**
+     * Une listas JSON ya validadas en una sola, copiando los bytes sin volver
+     * a parsearlas. Con una sola lista devuelve el mismo arreglo.
+     */
+    public static byte[] unir(List<byte[]> listas) {
+        if (listas.size() == 1) {
+            return listas.get(0);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        boolean vacia = true;
+        for (byte[] lista : listas) {
+            int desde = 0;
+            int hasta = lista.length;
+            while (desde < hasta && lista[desde] != '[') {
+                desde++;
+            }
+            while (hasta > desde && lista[hasta - 1] != ']') {
+                hasta--;
+            }
+            desde++;
+            hasta--;
+            while (desde < hasta && Character.isWhitespace(lista[desde])) {
+                desde++;
+            }
+            if (desde >= hasta) {
+                continue;
+            }
+            if (!vacia) {
+                out.write(',');
+            }
+            out.write(lista, desde, hasta - desde);
+            vacia = false;
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    /**
+     * Valor de un campo de primer nivel de un registro, sin leer el resto.
+     */
+    public String campo(byte[] json, String nombre) throws IOException {
+        try (JsonParser parser = factory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean buscado = nombre.equals(parser.getCurrentName());
+                JsonToken valor = parser.nextToken();
+                if (buscado) {
+                    return valor.isScalarValue() && valor != JsonToken.VALUE_NULL ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    private enum Forma {
+        REGISTRO, LISTA, PAGINA
+    }
+
+    private byte[] pasar(byte[] json, Forma forma) throws IOException {
+        try (JsonParser parser = factory.createParser(json)) {
+            if (recorrer(parser, null, forma)) {
+                return json;
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = factory.createParser(json);
+                JsonGenerator generator = factory.createGenerator(out)) {
+            recorrer(parser, generator, forma);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Con generator null solo valida; devuelve si se puede pasar sin cambios.
+     */
+    private boolean recorrer(JsonParser parser, JsonGenerator generator, Forma forma) throws IOException {
+        JsonToken token = parser.nextToken();
+        boolean intacto;
+        switch (forma) {
+            case REGISTRO:
+                intacto = registro(parser, token, generator);
+                break;
+            case LISTA:
+                if (token == JsonToken.VALUE_NULL) {
+                    // el chaincode devuelve null cuando no encontro ninguno
+                    if (generator != null) {
+                        generator.writeStartArray();
+                        generator.writeEndArray();
+                    }
+                    intacto = false;
+                } else {
+                    intacto = lista(parser, token, generator);
+                }
+                break;
+            default:
+                intacto = pagina(parser, token, generator);
+        }
+        if (parser.nextToken() != null) {
+            throw new JsonParseException(parser, "Contenido de mas despues de la respuesta del chaincode");
+        }
+        return intacto;
+    }
+
+    private boolean pagina(JsonParser parser, JsonToken token, JsonGenerator generator) throws IOException {
+        expect(parser, token, JsonToken.START_OBJECT);
+        if (generator != null) {
+            generator.writeStartObject();
+        }
+        boolean intacto = true;
+        boolean componentes = false;
+        boolean bookmark = false;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String nombre = parser.getCurrentName();
+            token = parser.nextToken();
+            if ("componentes".equals(nombre) && !componentes) {
+                componentes = true;
+                if (generator != null) {
+                    generator.writeFieldName(nombre);
+                }
+                intacto &= lista(parser, token, generator);
+            } else if ("bookmark".equals(nombre) && !bookmark) {
+                bookmark = true;
+                if (token != JsonToken.VALUE_STRING && token != JsonToken.VALUE_NULL) {
+                    throw new JsonParseException(parser, "bookmark no es un texto");
+                }
+                if (generator != null) {
+                    generator.writeFieldName(nombre);
+                    generator.copyCurrentEvent(parser);
+                }
+            } else {
+                intacto = false;
+                parser.skipChildren();
+            }
+        }
+        if (generator != null) {
+            if (!componentes) {
+                generator.writeNullField("componentes");
+            }
+            if (!bookmark) {
+                generator.writeNullField("bookmark");
+            }
+            generator.writeEndObject();
+        }
+        return intacto && componentes && bookmark;
+    }
+
+    private boolean lista(JsonParser parser, JsonToken token, JsonGenerator generator) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            if (generator != null) {
+                generator.writeNull();
+            }
+            return true;
+        }
+        expect(parser, token, JsonToken.START_ARRAY);
+        if (generator != null) {
+            generator.writeStartArray();
+        }
+        boolean intacto = true;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            intacto &= registro(parser, token, generator);
+        }
+        if (generator != null) {
+            generator.writeEndArray();
+        }
+        return intacto;
+    }
+
+    private boolean registro(JsonParser parser, JsonToken token, JsonGenerator generator) throws IOException {
+        expect(parser, token, JsonToken.START_OBJECT);
+        if (generator != null) {
+            generator.writeStartObject();
+        }
+        long vistos = 0;
+        boolean intacto = true;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            Integer indice = indices.get(parser.getCurrentName());
+            JsonToken valor = parser.nextToken();
+            if (indice == null || (vistos & (1L << indice)) != 0) {
+                // campo que el modelo no tiene, o repetido
+                intacto = false;
+                parser.skipChildren();
+                continue;
+            }
+            if (!valor.isScalarValue()) {
+                throw new JsonParseException(parser, "El campo " + campos[indice] + " no es un valor simple");
+            }
+            vistos |= 1L << indice;
+            if (generator != null) {
+                generator.writeFieldName(campos[indice]);
+                generator.copyCurrentEvent(parser);
+            }
+        }
+        if (generator != null) {
+            for (int i = 0; i < campos.length; i++) {
+                if ((vistos & (1L << i)) == 0) {
+                    generator.writeNullField(campos[i]);
+                }
+            }
+            generator.writeEndObject();
+        }
+        return intacto && vistos == completo;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken esperado) throws JsonParseException {
+        if (actual != esperado) {
+            throw new JsonParseException(parser, "Se esperaba " + esperado + " y vino " + actual);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.code.hyperledger.Utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.http.ResponseEntity;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+/**
+ * Recorre un listado paginado del chaincode ({"componentes": [...], "bookmark": "..."})
+ * y escribe cada componente como una linea JSON (NDJSON), copiando los tokens
+ * sin armar objetos. La memoria usada depende del tamano de pagina, no del ledger.
+ */
+public class NdjsonPages {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    @FunctionalInterface
+    public interface PageFetcher {
+        byte[] fetch(String bookmark) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Trabajo que escribe el listado directo en la respuesta, para correr en el
+     * bulkhead de consultas con su propio timeout. Al terminar la respuesta ya
+     * esta escrita y no se devuelve cuerpo.
+     */
+    public static Supplier<ResponseEntity<Void>> task(HttpServletResponse response, Writer writer) {
+        return () -> {
+            try {
+                response.setContentType(MEDIA_TYPE);
+                OutputStream out = response.getOutputStream();
+                writer.write(out);
+                out.flush();
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    public static long stream(JsonFactory factory, OutputStream out, int pageSize, PageFetcher fetcher)
+            throws Exception {
+        long total = 0;
+        String bookmark = "";
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (true) {
+                byte[] page = fetcher.fetch(bookmark);
+                String nextBookmark = "";
+                int count = 0;
+                try (JsonParser parser = factory.createParser(page)) {
+                    if (parser.nextToken() != JsonToken.START_OBJECT) {
+                        throw new IOException("Respuesta paginada invalida");
+                    }
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.getCurrentName();
+                        JsonToken token = parser.nextToken();
+                        if ("componentes".equals(field) && token == JsonToken.START_ARRAY) {
+                            count = copyArray(parser, generator);
+                        } else if ("bookmark".equals(field)) {
+                            nextBookmark = parser.getValueAsString("");
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                // se vacia cada pagina para que el cliente reciba los datos a medida que llegan
+                generator.flush();
+                total += count;
+                if (count < pageSize || nextBookmark.isEmpty() || nextBookmark.equals(bookmark)) {
+                    return total;
+                }
+                bookmark = nextBookmark;
+            }
+        }
+    }
+
+    private static int copyArray(JsonParser parser, JsonGenerator generator) throws IOException {
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                generator.copyCurrentStructure(parser);
+                generator.writeRaw('\n');
+                count++;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return count;
+    }
+}
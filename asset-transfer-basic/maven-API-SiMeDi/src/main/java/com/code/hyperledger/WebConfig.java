@@ -1,5 +1,6 @@
 package com.code.hyperledger;
 
+import com.code.hyperledger.web.FragmentosFallidos;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -17,6 +18,7 @@ public class WebConfig {
                     .allowedOrigins("http://localhost:5173", "http://localhost:3005")
                     .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                     .allowedHeaders("*")
+                    .exposedHeaders(FragmentosFallidos.HEADER)
                     .allowCredentials(true);
             }
         };
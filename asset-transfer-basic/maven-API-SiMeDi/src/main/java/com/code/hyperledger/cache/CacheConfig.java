@@ -0,0 +1,21 @@
+package com.code.hyperledger.cache;
+
+import com.code.hyperledger.configs.CacheConfigProperties;
+import com.code.hyperledger.models.Receta;
+import com.code.hyperledger.models.Vacuna;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public LedgerCache<Receta> recetaCache(CacheConfigProperties properties) {
+        return new LedgerCache<>("recetas", properties.getRecetas());
+    }
+
+    @Bean
+    public LedgerCache<Vacuna> vacunaCache(CacheConfigProperties properties) {
+        return new LedgerCache<>("vacunas", properties.getVacunas());
+    }
+}
@@ -0,0 +1,76 @@
+package com.code.hyperledger.cache;
+
+import com.code.hyperledger.events.LedgerEvent;
+import com.code.hyperledger.events.LedgerEventHandler;
+import com.code.hyperledger.fabric.PagePrefetcher;
+import com.code.hyperledger.models.Receta;
+import com.code.hyperledger.models.Vacuna;
+import com.code.hyperledger.web.ConditionalGet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Invalida del cache las recetas que cambiaron de estado en el ledger
+ * (incluidas las modificadas por otras instancias de la API) y las paginas
+ * guardadas del paciente de cada receta o vacuna nueva o modificada, junto
+ * con el ETag guardado de esas recetas.
+ */
+@Component
+public class CacheInvalidationListener implements LedgerEventHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    private static final Set<String> RECETA_EVENTS =
+            Set.of("FirmarReceta", "EntregarReceta", "DeleteReceta", "TransferirReceta");
+    private static final Set<String> EVENTS = Set.of("FirmarReceta", "EntregarReceta", "DeleteReceta",
+            "TransferirReceta", "CreateReceta", "CreateVacuna");
+
+    private final LedgerCache<Receta> recetaCache;
+    private final LedgerCache<Vacuna> vacunaCache;
+    private final PagePrefetcher paginas;
+    private final ConditionalGet conditionalGet;
+
+    public CacheInvalidationListener(LedgerCache<Receta> recetaCache, LedgerCache<Vacuna> vacunaCache,
+            PagePrefetcher paginas, ConditionalGet conditionalGet) {
+        this.recetaCache = recetaCache;
+        this.vacunaCache = vacunaCache;
+        this.paginas = paginas;
+        this.conditionalGet = conditionalGet;
+    }
+
+    @Override
+    public String getName() {
+        return "cache-invalidation";
+    }
+
+    @Override
+    public Set<String> getEventNames() {
+        return EVENTS;
+    }
+
+    @Override
+    public void handle(LedgerEvent event) {
+        String id = event.getText("id");
+        if (RECETA_EVENTS.contains(event.getEventName())) {
+            if (id == null) {
+                recetaCache.invalidateAll();
+            } else {
+                recetaCache.invalidate(id);
+            }
+            conditionalGet.invalidar("receta", id);
+        }
+        paginas.invalidarPaciente(event.getText("patientDocumentNumber"));
+        logger.debug("Evento {} en bloque {}: {} invalidada", event.getEventName(), event.getBlockNumber(), id);
+    }
+
+    @Override
+    public void eventsLost() {
+        recetaCache.invalidateAll();
+        vacunaCache.invalidateAll();
+        paginas.invalidateAll();
+        conditionalGet.invalidateAll();
+    }
+}
@@ -0,0 +1,80 @@
+package com.code.hyperledger.cache;
+
+import com.code.hyperledger.configs.CacheConfigProperties;
+import com.code.hyperledger.models.CacheStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Cache acotado (tamano y TTL) de registros leidos del ledger, indexado por ID.
+ * Las invalidaciones incrementan una generacion: una lectura que empezo antes
+ * de una invalidacion no puede volver a cargar el valor viejo en el cache.
+ */
+public class LedgerCache<V> {
+
+    private final String name;
+    private final boolean enabled;
+    private final Cache<String, V> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public LedgerCache(String name, CacheConfigProperties.Spec spec) {
+        this.name = name;
+        this.enabled = spec.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(spec.getMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(spec.getTtlSeconds()))
+                .recordStats()
+                .build();
+    }
+
+    public V getIfPresent(String key) {
+        return enabled ? cache.getIfPresent(key) : null;
+    }
+
+    /**
+     * Debe leerse antes de ir al ledger y pasarse a {@link #put}.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void put(String key, V value, long loadedAtGeneration) {
+        if (!enabled || value == null) {
+            return;
+        }
+        cache.put(key, value);
+        if (generation.get() != loadedAtGeneration) {
+            // hubo una invalidacion mientras se leia del ledger
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidate(String key) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    public void invalidateIf(Predicate<String> key) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        cache.asMap().keySet().removeIf(key);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        var stats = cache.stats();
+        return new CacheStats(name, enabled, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount(), invalidations.get());
+    }
+}
@@ -0,0 +1,37 @@
+package com.code.hyperledger.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "bulkhead")
+public class BulkheadConfigProperties {
+    private Spec query = new Spec(32, 200, 30000);
+    // por encima de (endorse 15s + submit 5s + commitStatus 60s) x 3 intentos
+    private Spec submit = new Spec(16, 100, 300000);
+    // /crear/lote sin async espera el commit de hasta fabric.bulk.maxItems transacciones
+    private long loteTimeoutMs = 900000;
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private int threads;
+        private int queueCapacity;
+        // 503 (sin capacidad) o 429 (reintentar mas tarde)
+        private int rejectionStatus = 503;
+        private int retryAfterSeconds = 1;
+        // vencido el request se responde 503 y el trabajo se cancela; 0 usa el timeout async del contenedor
+        private long timeoutMs;
+
+        public Spec() {
+        }
+
+        public Spec(int threads, int queueCapacity, long timeoutMs) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.timeoutMs = timeoutMs;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.code.hyperledger.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "cache")
+public class CacheConfigProperties {
+    private Spec recetas = new Spec();
+    private Spec vacunas = new Spec();
+    private Paginas paginas = new Paginas();
+    private Etags etags = new Etags();
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private boolean enabled = true;
+        private long maxSize = 10000;
+        private long ttlSeconds = 300;
+    }
+
+    /**
+     * Paginas de las consultas paginadas por paciente, con la lectura por
+     * adelantado de las siguientes. TTL corto: solo tienen que durar hasta
+     * que el cliente pida la pagina que sigue.
+     */
+    @Getter
+    @Setter
+    public static class Paginas extends Spec {
+        private int prefetchDepth = 1;
+        private int prefetchThreads = 2;
+        private int prefetchQueueCapacity = 100;
+
+        public Paginas() {
+            setMaxSize(1000);
+            setTtlSeconds(10);
+        }
+    }
+
+    /**
+     * ETags de los registros que ya no cambian (recetas completadas o
+     * canceladas y vacunas), para contestar If-None-Match sin leer el ledger.
+     * Son solo hashes: entran muchos y pueden durar mucho.
+     */
+    public static class Etags extends Spec {
+        public Etags() {
+            setMaxSize(100000);
+            setTtlSeconds(86400);
+        }
+    }
+}
@@ -5,6 +5,13 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import com.code.hyperledger.fabric.LoadBalancingStrategy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Getter
 @Setter
 @ConfigurationProperties(prefix = "fabric")
@@ -19,4 +26,237 @@ public class FabricConfigProperties {
     private String certPath;
     private String keyPath;  
     private String tlsCertPath;
+
+    // si esta vacia se usa el par peerEndpoint/overrideAuth
+    private List<Peer> peers = new ArrayList<>();
+
+    // identidades adicionales por nombre (p. ej. matricula o organizacion), elegidas por request
+    // con el header X-Fabric-Identity; sin header se firma con certPath/keyPath
+    private Map<String, Identity> identities = new HashMap<>();
+    private IdentityPool identityPool = new IdentityPool();
+    private IdentitySelection identitySelection = new IdentitySelection();
+
+    private Pool pool = new Pool();
+    private LoadBalancing loadBalancing = new LoadBalancing();
+    private CommitTracker commitTracker = new CommitTracker();
+    private Bulk bulk = new Bulk();
+    private Batching batching = new Batching();
+    private MultiGet multiGet = new MultiGet();
+    private Events events = new Events();
+    private Policies policies = new Policies();
+    private Conflicts conflicts = new Conflicts();
+    private Signing signing = new Signing();
+    private InMemory inMemory = new InMemory();
+
+    @Getter
+    @Setter
+    public static class Peer {
+        private String endpoint;
+        private String overrideAuth;
+        // relativo a cryptoPath, si no se indica se usa tlsCertPath
+        private String tlsCertPath;
+    }
+
+    @Getter
+    @Setter
+    public static class Identity {
+        // si no se indica se usa mspId
+        private String mspId;
+        // directorios relativos a cryptoPath, como certPath y keyPath
+        private String certPath;
+        private String keyPath;
+        // API keys (header identitySelection.apiKeyHeader) que pueden firmar con esta identidad
+        private List<String> apiKeys = new ArrayList<>();
+        // usuarios autenticados o sujetos (DN) de certificados de cliente TLS que pueden firmar con esta identidad
+        private List<String> principals = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class IdentitySelection {
+        // sin habilitar, un request con X-Fabric-Identity se rechaza con 403
+        private boolean enabled = false;
+        private String apiKeyHeader = "X-Api-Key";
+    }
+
+    @Getter
+    @Setter
+    public static class IdentityPool {
+        // identidades con Gateways abiertos a la vez; al pasarse se cierran las usadas hace mas tiempo
+        private int maxActive = 100;
+        // una identidad sin uso durante este tiempo cierra sus Gateways
+        private long idleMinutes = 30;
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+        // cantidad de canales gRPC (conexiones HTTP/2) y Gateways abiertos contra el peer
+        // por cada peer configurado
+        private int size = 2;
+        // tiempo maximo de espera al cerrar los canales en el shutdown
+        private long shutdownTimeoutSeconds = 5;
+    }
+
+    @Getter
+    @Setter
+    public static class LoadBalancing {
+        private LoadBalancingStrategy strategy = LoadBalancingStrategy.ROUND_ROBIN;
+        // tiempo que un peer queda fuera de la rotacion despues de un timeout o UNAVAILABLE
+        private long unhealthyCooldownMs = 5000;
+    }
+
+    @Getter
+    @Setter
+    public static class CommitTracker {
+        // hilos que esperan el estado de commit de las transacciones enviadas en modo async
+        private int threads = 8;
+        // transacciones esperando un hilo; con la cola llena los envios async se rechazan (503)
+        // antes de mandarse al orderer
+        private int queueCapacity = 10000;
+        private int retryAfterSeconds = 1;
+        private long maxEntries = 100000;
+        private long retentionMinutes = 60;
+    }
+
+    @Getter
+    @Setter
+    public static class Bulk {
+        // transacciones de carga masiva endosando/enviandose a la vez (compartido entre requests)
+        private int maxConcurrency = 16;
+        private int maxItems = 1000;
+        // transacciones de lotes esperando un hilo; un lote que no entra completo se rechaza (503)
+        private int queueCapacity = 2000;
+    }
+
+    @Getter
+    @Setter
+    public static class MultiGet {
+        // IDs por evaluacion de GetMultipleRecetas/GetMultipleVacunas en /todas; las listas mas largas se parten
+        private int chunkSize = 200;
+        // fragmentos evaluandose a la vez (compartido entre requests); se reparten entre los peers
+        private int maxConcurrency = 16;
+    }
+
+    @Getter
+    @Setter
+    public static class Batching {
+        // lecturas por ID (ReadReceta/ReadVacuna) agrupadas en GetMultipleRecetas/GetMultipleVacunas
+        private boolean enabled = true;
+        // cuanto espera el primer pedido de un lote a que lleguen otros
+        private long windowMicros = 2000;
+        // IDs por lote; al completarse se envia sin esperar la ventana
+        private int maxSize = 50;
+    }
+
+    @Getter
+    @Setter
+    public static class Events {
+        // consumidor de eventos del chaincode compartido por los LedgerEventHandler registrados
+        private boolean enabled = true;
+        // ultimo evento procesado por todos los handlers; vacio para no guardarlo y arrancar siempre
+        // desde el bloque actual
+        private String checkpointFile = "data/events/checkpoint.json";
+        // hilos de despacho; los eventos con la misma clave van siempre al mismo
+        private int lanes = 4;
+        // eventos esperando por hilo; con la cola llena se deja de leer del peer
+        private int laneCapacity = 1000;
+        // intervalo minimo entre escrituras del checkpoint
+        private long checkpointIntervalMs = 1000;
+        private long maxBackoffMs = 30000;
+        // intentos de un handler con el mismo evento; si se agotan el checkpoint queda antes de
+        // ese evento y se vuelve a entregar al reconectar o reiniciar
+        private int handlerMaxAttempts = 5;
+        // espera antes de reintentar un handler, duplicandose hasta maxBackoffMs
+        private long handlerBackoffMs = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Conflicts {
+        // intentos totales de una transicion de estado invalidada por MVCC_READ_CONFLICT
+        private int maxAttempts = 5;
+        // espera antes de reendosar, duplicandose en cada conflicto (con jitter)
+        private long backoffMs = 20;
+        private long maxBackoffMs = 500;
+    }
+
+    @Getter
+    @Setter
+    public static class Signing {
+        // con false se firma en el hilo de cada request
+        private boolean pooled = true;
+        // hilos que firman; 0 = uno por nucleo
+        private int threads = 0;
+        // firmas esperando un hilo; con la cola llena se firma en el hilo del request
+        private int queueCapacity = 10000;
+        // reusar por hilo la Signature ya inicializada con la clave en lugar del signer de
+        // fabric-gateway; conviene si SignerBenchmark.cachedSigner rinde mas en el servidor
+        private boolean cachedSignature = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Policies {
+        // valores para todo lo que una funcion no define en functions
+        private Policy defaults = Policy.defaults();
+        // por nombre de funcion del chaincode, p. ej. functions.GetAllRecetas.evaluateTimeoutMs
+        private Map<String, Policy> functions = new HashMap<>();
+        // hilos para las consultas de respaldo; con todos ocupados la consulta sigue sin respaldo
+        private int hedgeThreads = 16;
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        // deadline de cada fase
+        private Long evaluateTimeoutMs;
+        private Long endorseTimeoutMs;
+        private Long submitTimeoutMs;
+        private Long commitStatusTimeoutMs;
+        // intentos en total ante UNAVAILABLE o DEADLINE_EXCEEDED (1 = sin reintentos);
+        // aplica a evaluate, endorse y la consulta del estado de commit, nunca al envio al orderer
+        private Integer maxAttempts;
+        // espera antes del primer reintento, se duplica en cada uno (con jitter) hasta maxBackoffMs
+        private Long backoffMs;
+        private Long maxBackoffMs;
+        // solo evaluate y con mas de un peer: si no hubo respuesta para el p95 reciente de la
+        // funcion se manda la misma consulta a otro peer y se usa la primera que responda bien
+        private Boolean hedge;
+        // demora minima antes de mandar la segunda consulta
+        private Long hedgeMinDelayMs;
+
+        static Policy defaults() {
+            Policy policy = new Policy();
+            policy.evaluateTimeoutMs = 5000L;
+            policy.endorseTimeoutMs = 15000L;
+            policy.submitTimeoutMs = 5000L;
+            policy.commitStatusTimeoutMs = 60000L;
+            policy.maxAttempts = 3;
+            policy.backoffMs = 100L;
+            policy.maxBackoffMs = 2000L;
+            policy.hedge = false;
+            policy.hedgeMinDelayMs = 20L;
+            return policy;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class InMemory {
+        // solo con el perfil inmemory: latencia simulada por fase (mas un jitter aleatorio)
+        private long evaluateLatencyMs = 0;
+        private long endorseLatencyMs = 0;
+        private long submitLatencyMs = 0;
+        private long commitLatencyMs = 0;
+        private long latencyJitterMs = 0;
+        // probabilidad (0 a 1) de que la evaluacion o el endorsement fallen con UNAVAILABLE
+        private double evaluateErrorRate = 0;
+        private double endorseErrorRate = 0;
+        // probabilidad de que el commit se invalide con MVCC_READ_CONFLICT
+        private double commitConflictRate = 0;
+        // probabilidad de que una evaluacion o endorsement tarde slowCallLatencyMs de mas (cola de latencia)
+        private double slowCallRate = 0;
+        private long slowCallLatencyMs = 0;
+    }
 }
@@ -0,0 +1,13 @@
+package com.code.hyperledger.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ids")
+public class IdConfigProperties {
+    // distinto en cada instancia de la API; si queda vacio se genera uno aleatorio al arrancar
+    private String nodeId;
+}
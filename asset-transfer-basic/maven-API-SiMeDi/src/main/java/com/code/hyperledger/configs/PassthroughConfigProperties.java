@@ -0,0 +1,15 @@
+package com.code.hyperledger.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "passthrough")
+public class PassthroughConfigProperties {
+    // /todas y /obtener/paginado devuelven los bytes del chaincode validados, sin armar los modelos
+    private boolean enabled = true;
+    // lo mismo para /obtener; lee siempre del peer (ReadReceta / ReadVacuna) sin el cache de registros ni el batching
+    private boolean obtener = false;
+}
@@ -0,0 +1,39 @@
+package com.code.hyperledger.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "quota")
+public class QuotaConfigProperties {
+    private boolean enabled = false;
+    // header con la API key del cliente; solo cuenta si es una de apiKeys, si no el cliente es la IP de origen
+    private String clientHeader = "X-Api-Key";
+    private List<String> apiKeys = new ArrayList<>();
+    private Spec submit = new Spec(10, 20);
+    private Spec query = new Spec(100, 200);
+    // clientes con cuota en memoria; los que no hacen requests por idleMinutes se olvidan (vuelven con el balde lleno)
+    private long maxClients = 10000;
+    private long idleMinutes = 10;
+
+    @Getter
+    @Setter
+    public static class Spec {
+        private double ratePerSecond;
+        // requests seguidos que se admiten con el balde lleno
+        private int burst;
+
+        public Spec() {
+        }
+
+        public Spec(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.code.hyperledger.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "readmodel")
+public class ReadModelConfigProperties {
+    private boolean enabled = false;
+    // con true las consultas paginadas por paciente siguen yendo al ledger aunque el modelo este al dia
+    private boolean fallbackToLedger = false;
+    private String directory = "data/readmodel";
+    // tamano de pagina al armar el modelo desde cero con GetRecetasPaginadoCompleto / GetVacunasPaginado
+    private int snapshotPageSize = 500;
+    // el log se compacta cuando tiene mas de este numero de lineas y el doble de los registros vivos
+    private int compactMinLines = 10000;
+}
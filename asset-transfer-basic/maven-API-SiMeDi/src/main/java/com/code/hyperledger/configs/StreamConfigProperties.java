@@ -0,0 +1,13 @@
+package com.code.hyperledger.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stream")
+public class StreamConfigProperties {
+    // tiempo maximo de /recetas/stream y /vacunas/stream; las demas consultas usan bulkhead.query.timeoutMs
+    private long timeoutMs = 600000;
+}
@@ -0,0 +1,35 @@
+package com.code.hyperledger.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tracing")
+public class TracingConfigProperties {
+    private boolean enabled = true;
+    // fraccion de los requests sin traceparent que se trazan; con traceparent manda su flag sampled
+    private double sampleRate = 0.01;
+    // header de la respuesta con el traceId de los requests trazados
+    private String responseHeader = "X-Trace-Id";
+    private Memory memory = new Memory();
+    private File file = new File();
+
+    @Getter
+    @Setter
+    public static class Memory {
+        private boolean enabled = true;
+        // ultimos spans que se guardan para /fabric/traces
+        private int maxSpans = 10000;
+    }
+
+    @Getter
+    @Setter
+    public static class File {
+        private boolean enabled = false;
+        private String path = "data/traces/spans.ndjson";
+        // spans esperando ser escritos; con la cola llena se descartan
+        private int queueCapacity = 10000;
+    }
+}
@@ -0,0 +1,103 @@
+package com.code.hyperledger.controllers;
+
+import com.code.hyperledger.cache.LedgerCache;
+import com.code.hyperledger.fabric.FabricConnectionManager;
+import com.code.hyperledger.fabric.PagePrefetcher;
+import com.code.hyperledger.models.BulkheadStats;
+import com.code.hyperledger.models.CacheStats;
+import com.code.hyperledger.models.FabricPoolStats;
+import com.code.hyperledger.models.QuotaStats;
+import com.code.hyperledger.models.ReadModelStats;
+import com.code.hyperledger.models.Receta;
+import com.code.hyperledger.models.TraceSpan;
+import com.code.hyperledger.models.Vacuna;
+import com.code.hyperledger.readmodel.ReadModel;
+import com.code.hyperledger.tracing.InMemorySpanExporter;
+import com.code.hyperledger.web.Bulkhead;
+import com.code.hyperledger.web.ConditionalGet;
+import com.code.hyperledger.web.QuotaFilter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/fabric")
+public class FabricController {
+
+    @Autowired
+    private FabricConnectionManager connectionManager;
+
+    @Autowired
+    private LedgerCache<Receta> recetaCache;
+
+    @Autowired
+    private LedgerCache<Vacuna> vacunaCache;
+
+    @Autowired
+    private PagePrefetcher pagePrefetcher;
+
+    @Autowired
+    private ConditionalGet conditionalGet;
+
+    @Autowired
+    private ReadModel readModel;
+
+    @Autowired
+    @Qualifier("queryBulkhead")
+    private Bulkhead queryBulkhead;
+
+    @Autowired
+    @Qualifier("submitBulkhead")
+    private Bulkhead submitBulkhead;
+
+    @Autowired
+    private QuotaFilter quotaFilter;
+
+    @Autowired(required = false)
+    private InMemorySpanExporter spans;
+
+    @GetMapping("/pool")
+    public ResponseEntity<FabricPoolStats> obtenerEstadoPool() {
+        return new ResponseEntity<>(connectionManager.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<List<CacheStats>> obtenerEstadoCache() {
+        return new ResponseEntity<>(List.of(recetaCache.getStats(), vacunaCache.getStats(),
+                pagePrefetcher.getStats(), conditionalGet.getStats()), HttpStatus.OK);
+    }
+
+    @GetMapping("/readmodel")
+    public ResponseEntity<ReadModelStats> obtenerEstadoReadModel() {
+        return new ResponseEntity<>(readModel.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/bulkheads")
+    public ResponseEntity<List<BulkheadStats>> obtenerEstadoBulkheads() {
+        return new ResponseEntity<>(List.of(queryBulkhead.getStats(), submitBulkhead.getStats()), HttpStatus.OK);
+    }
+
+    @GetMapping("/quotas")
+    public ResponseEntity<List<QuotaStats>> obtenerEstadoCuotas() {
+        return new ResponseEntity<>(quotaFilter.getStats(), HttpStatus.OK);
+    }
+
+    /**
+     * Spans guardados en memoria de una traza (traceId, el header X-Trace-Id de
+     * la respuesta) o de la traza de una transaccion de Fabric (txId). Sin
+     * filtros, los ultimos requests trazados.
+     */
+    @GetMapping("/traces")
+    public ResponseEntity<List<TraceSpan>> obtenerTrazas(@RequestParam(required = false) String traceId,
+            @RequestParam(required = false) String txId, @RequestParam(defaultValue = "100") int limit) {
+        if (spans == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(spans.buscar(traceId, txId, Math.max(1, limit)), HttpStatus.OK);
+    }
+}
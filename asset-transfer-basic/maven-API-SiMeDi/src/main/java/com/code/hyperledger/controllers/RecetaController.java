@@ -1,24 +1,44 @@
 package com.code.hyperledger.controllers;
 
-import com.code.hyperledger.Utils.Hashing;
+import com.code.hyperledger.Utils.IdGenerator;
+import com.code.hyperledger.Utils.JsonPassthrough;
+import com.code.hyperledger.Utils.NdjsonPages;
+import com.code.hyperledger.configs.BulkheadConfigProperties;
+import com.code.hyperledger.configs.PassthroughConfigProperties;
+import com.code.hyperledger.configs.StreamConfigProperties;
+import com.code.hyperledger.fabric.CommitTracker;
+import com.code.hyperledger.fabric.KeyedSubmitter;
 import com.code.hyperledger.models.AssetIdDto;
+import com.code.hyperledger.models.EstadoTransaccion;
 import com.code.hyperledger.models.Receta;
 import com.code.hyperledger.models.RecetaDto;
 import com.code.hyperledger.services.RecetaService;
 import com.code.hyperledger.models.ResultadoPaginado;
+import com.code.hyperledger.models.ResultadoPorIds;
 import com.code.hyperledger.models.RecetaRequestDto;
+import com.code.hyperledger.web.Bulkhead;
+import com.code.hyperledger.web.ConditionalGet;
+import com.code.hyperledger.web.FragmentosFallidos;
+import com.code.hyperledger.models.ResultadoCarga;
 
 import org.hyperledger.fabric.client.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,175 +52,373 @@ public class RecetaController {
     @Autowired
     private RecetaService recetaService;
 
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    @Qualifier("queryBulkhead")
+    private Bulkhead queryBulkhead;
+
+    @Autowired
+    @Qualifier("submitBulkhead")
+    private Bulkhead submitBulkhead;
+
+    @Autowired
+    private BulkheadConfigProperties bulkheads;
+
+    @Autowired
+    private ConditionalGet conditionalGet;
+
+    @Autowired
+    private PassthroughConfigProperties passthrough;
+
+    @Autowired
+    private StreamConfigProperties stream;
+
+    @Autowired
+    private CommitTracker commitTracker;
+
     @PostMapping("/crear")
-    public ResponseEntity<AssetIdDto> crear(@RequestBody Receta receta) {
-        String now = LocalDateTime.now().toString();
-        String dni = receta.getPatientDocumentNumber();
-        String id = dni + now;
-        String assetId = Hashing.sha256(id);
-        receta.setId(assetId);
+    public DeferredResult<ResponseEntity<AssetIdDto>> crear(@RequestBody Receta receta,
+            @RequestParam(defaultValue = "false") boolean async) {
+        return submitBulkhead.execute(() -> {
+            String now = LocalDateTime.now().toString();
+            String dni = receta.getPatientDocumentNumber();
+            String assetId = idGenerator.nextId(dni);
+            receta.setId(assetId);
 
-        AssetIdDto assetIdDto = new AssetIdDto();
-        assetIdDto.setDni(dni);
-        assetIdDto.setTimeStamp(now);
+            AssetIdDto assetIdDto = new AssetIdDto();
+            assetIdDto.setId(assetId);
+            assetIdDto.setDni(dni);
+            assetIdDto.setTimeStamp(now);
 
-        try {
-            recetaService.cargarReceta(receta);
-            return new ResponseEntity<>(assetIdDto, HttpStatus.OK);
-        } catch (CommitStatusException | EndorseException | CommitException | SubmitException e) {
-            System.err.println("Error al cargar la receta: " + e.getMessage());
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
-        }
+            if (async) {
+                try {
+                    EstadoTransaccion estado = recetaService.cargarRecetaAsync(receta);
+                    assetIdDto.setTxId(estado.getTxId());
+                    return new ResponseEntity<>(assetIdDto, HttpStatus.ACCEPTED);
+                } catch (RejectedExecutionException e) {
+                    logger.warn("Envio async de receta rechazado: {}", e.getMessage());
+                    return ocupado();
+                } catch (EndorseException | SubmitException e) {
+                    logger.error("Error al enviar la receta en modo async", e);
+                    return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+                } catch (IOException e) {
+                    logger.error("Receta invalida", e);
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+            }
+
+            try {
+                recetaService.cargarReceta(receta);
+                return new ResponseEntity<>(assetIdDto, HttpStatus.OK);
+            } catch (CommitStatusException | EndorseException | CommitException | SubmitException e) {
+                logger.error("Error al cargar la receta", e);
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+        });
+    }
+
+    @PostMapping("/crear/lote")
+    public DeferredResult<ResponseEntity<List<ResultadoCarga>>> crearLote(@RequestBody List<Receta> recetas,
+            @RequestParam(defaultValue = "false") boolean async) {
+        return submitBulkhead.execute(bulkheads.getLoteTimeoutMs(), () -> {
+            for (Receta receta : recetas) {
+                if (receta != null) {
+                    receta.setId(idGenerator.nextId(receta.getPatientDocumentNumber()));
+                }
+            }
+            try {
+                List<ResultadoCarga> resultados = recetaService.cargarRecetas(recetas, async);
+                return new ResponseEntity<>(resultados, async ? HttpStatus.ACCEPTED : HttpStatus.OK);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Lote de recetas rechazado: {}", e.getMessage());
+                return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Lote de recetas rechazado: {}", e.getMessage());
+                return ocupado();
+            } catch (IOException e) {
+                logger.error("Error serializando el lote de recetas", e);
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+        });
     }
 
     @PostMapping("/obtener")
-    public ResponseEntity<RecetaDto> find(@RequestBody RecetaRequestDto requestBody) {
-        logger.info("Received request to obtain receta with ID: {}", requestBody.getId());
+    public DeferredResult<? extends ResponseEntity<?>> find(@RequestBody RecetaRequestDto requestBody,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        if (passthrough.isObtener()) {
+            return obtenerJson(requestBody.getId(), ifNoneMatch);
+        }
+        return obtener(requestBody.getId(), ifNoneMatch);
+    }
 
-        try {
-            String id = requestBody.getId();
-            logger.debug("Searching for receta with ID: {}", id);
+    @GetMapping("/obtener/{id}")
+    public DeferredResult<? extends ResponseEntity<?>> findById(@PathVariable String id,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        if (passthrough.isObtener()) {
+            return obtenerJson(id, ifNoneMatch);
+        }
+        return obtener(id, ifNoneMatch);
+    }
 
-            Receta receta = recetaService.obtenerReceta(id);
-            logger.debug("Receta found: {}", receta);
+    private DeferredResult<ResponseEntity<RecetaDto>> obtener(String id, String ifNoneMatch) {
+        return queryBulkhead.execute(() -> {
+            logger.info("Received request to obtain receta with ID: {}", id);
 
-            RecetaDto recetaDto = mapToDto(receta);
-            logger.info("Receta DTO created successfully for ID: {}", id);
+            try {
+                logger.debug("Searching for receta with ID: {}", id);
 
-            return new ResponseEntity<>(recetaDto, HttpStatus.OK);
-        } catch (IOException e) {
-            logger.error("IOException occurred while obtaining receta with ID: {}", requestBody.getId(), e);
-            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
-        } catch (GatewayException e) {
-            logger.error("GatewayException occurred while obtaining receta with ID: {}", requestBody.getId(), e);
-            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
-        } catch (Exception e) {
-            logger.error("Unexpected error occurred while obtaining receta with ID: {}", requestBody.getId(), e);
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+                // las completadas y canceladas no cambian: su ETag queda guardado y el 304 sale sin leer el ledger
+                return conditionalGet.responder("receta", id, ifNoneMatch,
+                        () -> mapToDto(recetaService.obtenerReceta(id)),
+                        dto -> "completed".equals(dto.getStatus()) || "cancelled".equals(dto.getStatus()));
+            } catch (IOException e) {
+                logger.error("IOException occurred while obtaining receta with ID: {}", id, e);
+                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+            } catch (GatewayException e) {
+                logger.error("GatewayException occurred while obtaining receta with ID: {}", id, e);
+                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+            } catch (Exception e) {
+                logger.error("Unexpected error occurred while obtaining receta with ID: {}", id, e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
-    @PostMapping("/todas")
-    public ResponseEntity<List<RecetaDto>> obtenerRecetasPorIds(@RequestBody Map<String, List<String>> requestBody) {
-        try {
-            List<String> ids = requestBody.get("ids");
-            if (ids == null || ids.isEmpty()) {
-                return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
+    private DeferredResult<ResponseEntity<byte[]>> obtenerJson(String id, String ifNoneMatch) {
+        return queryBulkhead.execute(() -> {
+            try {
+                return conditionalGet.responderJson("receta", id, ifNoneMatch,
+                        () -> recetaService.obtenerRecetaJson(id), this::esDefinitiva);
+            } catch (IOException | GatewayException e) {
+                logger.error("Error obtaining receta with ID: {}", id, e);
+                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+            } catch (Exception e) {
+                logger.error("Unexpected error occurred while obtaining receta with ID: {}", id, e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
             }
+        });
+    }
 
-            List<Receta> recetas = recetaService.obtenerRecetasPorIds(ids);
-            List<RecetaDto> recetasDto = new ArrayList<>();
-            for (Receta receta : recetas) {
-                recetasDto.add(mapToDto(receta));
-            }
+    private boolean esDefinitiva(byte[] json) {
+        try {
+            String status = recetaService.estadoDeRecetaJson(json);
+            return "completed".equals(status) || "cancelled".equals(status);
+        } catch (IOException e) {
+            return false;
+        }
+    }
 
-            System.out.println("Recetas obtenidas del service con los siguientes IDs:");
+    @PostMapping("/todas")
+    public DeferredResult<? extends ResponseEntity<?>> obtenerRecetasPorIds(@RequestBody Map<String, List<String>> requestBody) {
+        if (passthrough.isEnabled()) {
+            return queryBulkhead.execute(() -> {
+                try {
+                    List<String> ids = requestBody.get("ids");
+                    if (ids == null || ids.isEmpty()) {
+                        return json(new byte[] { '[', ']' });
+                    }
+                    ResultadoPorIds<byte[]> resultado = recetaService.obtenerRecetasPorIdsJson(ids);
+                    return FragmentosFallidos.ok(resultado.getFallidos()).contentType(MediaType.APPLICATION_JSON)
+                            .body(JsonPassthrough.unir(resultado.getComponentes()));
+                } catch (IOException | GatewayException e) {
+                    logger.error("Error en /recetas/todas", e);
+                    return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+            });
+        }
+        return queryBulkhead.<Object>execute(() -> {
+            try {
+                List<String> ids = requestBody.get("ids");
+                if (ids == null || ids.isEmpty()) {
+                    return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
+                }
 
-            return new ResponseEntity<>(recetasDto, HttpStatus.OK);
+                ResultadoPorIds<Receta> recetas = recetaService.obtenerRecetasPorIds(ids);
+                List<RecetaDto> recetasDto = new ArrayList<>();
+                for (Receta receta : recetas.getComponentes()) {
+                    recetasDto.add(mapToDto(receta));
+                }
+                // si fallo algun fragmento se devuelve lo que se pudo leer y los fallidos van en un header
+                return FragmentosFallidos.ok(recetas.getFallidos()).body(recetasDto);
 
-        } catch (IOException | GatewayException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        } catch (Exception e) {
-            System.err.println("Error en submitTransaction: " + e.getMessage());
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+            } catch (IOException | GatewayException e) {
+                logger.error("Error en /recetas/todas", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (Exception e) {
+                logger.error("Error en submitTransaction", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     @PutMapping("/entregar")
-    public ResponseEntity<Void> entregarReceta(@RequestBody Map<String, String> requestBody) {
-        try {
-            String id = requestBody.get("id");
+    public DeferredResult<ResponseEntity<Void>> entregarReceta(@RequestBody Map<String, String> requestBody) {
+        return submitBulkhead.execute(() -> {
+            try {
+                String id = requestBody.get("id");
 
-            if (id == null || id.isEmpty()) {
-                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                if (id == null || id.isEmpty()) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+                recetaService.entregarReceta(id);
+                conditionalGet.invalidar("receta", id);
+                return new ResponseEntity<>(HttpStatus.OK);
+            } catch (CommitException e) {
+                // con MVCC_READ_CONFLICT ya se agotaron los reintentos: la receta sigue cambiando
+                logger.error("Error en /recetas/entregar", e);
+                return new ResponseEntity<>(KeyedSubmitter.isReadConflict(e)
+                        ? HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (EndorseException | SubmitException | CommitStatusException e) {
+                logger.error("Error en /recetas/entregar", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (GatewayException e) {
+                logger.error("Error en /recetas/entregar", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (Exception e) {
+                logger.error("Error en /recetas/entregar", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
             }
-            recetaService.entregarReceta(id);
-            return new ResponseEntity<>(HttpStatus.OK);
-        } catch (EndorseException | SubmitException | CommitStatusException | CommitException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        } catch (GatewayException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        });
     }
 
     @PutMapping("/firmar")
-    public ResponseEntity<Void> firmarReceta(@RequestBody Map<String, String> requestBody) {
-        try {
-            String id = requestBody.get("id");
-            String signature = requestBody.get("signature");
+    public DeferredResult<ResponseEntity<Void>> firmarReceta(@RequestBody Map<String, String> requestBody) {
+        return submitBulkhead.execute(() -> {
+            try {
+                String id = requestBody.get("id");
+                String signature = requestBody.get("signature");
 
-            if (id == null || id.isEmpty()) {
-                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-            }
+                if (id == null || id.isEmpty()) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
 
-            System.out.println("\n--> Submit Transaction: FirmarReceta");
-
-            recetaService.firmarReceta(id, signature);
-            return new ResponseEntity<>(HttpStatus.OK);
-        } catch (EndorseException | SubmitException | CommitStatusException | CommitException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        } catch (GatewayException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+                logger.debug("Submit Transaction: FirmarReceta {}", id);
+
+                recetaService.firmarReceta(id, signature);
+                conditionalGet.invalidar("receta", id);
+                return new ResponseEntity<>(HttpStatus.OK);
+            } catch (CommitException e) {
+                // con MVCC_READ_CONFLICT ya se agotaron los reintentos: la receta sigue cambiando
+                logger.error("Error en /recetas/firmar", e);
+                return new ResponseEntity<>(KeyedSubmitter.isReadConflict(e)
+                        ? HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (EndorseException | SubmitException | CommitStatusException e) {
+                logger.error("Error en /recetas/firmar", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (GatewayException e) {
+                logger.error("Error en /recetas/firmar", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (Exception e) {
+                logger.error("Error en /recetas/firmar", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     @GetMapping("/todasTest")
-    public List<Receta> obtenerTodasTest() throws Exception {
-        return recetaService.obtenerTodasLasRecetas();
+    public DeferredResult<ResponseEntity<List<Receta>>> obtenerTodasTest() {
+        return queryBulkhead.execute(() -> {
+            try {
+                return new ResponseEntity<>(recetaService.obtenerTodasLasRecetas(), HttpStatus.OK);
+            } catch (Exception e) {
+                logger.error("Error al obtener todas las recetas", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonPages.MEDIA_TYPE)
+    public DeferredResult<ResponseEntity<Void>> streamTodas(@RequestParam(defaultValue = "100") int pageSize,
+            HttpServletResponse response) {
+        if (pageSize < 1 || pageSize > 1000) {
+            return Bulkhead.completed(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return queryBulkhead.execute(stream.getTimeoutMs(), NdjsonPages.task(response, out -> {
+            try {
+                long total = recetaService.escribirTodasLasRecetas(out, pageSize);
+                logger.info("Stream de recetas finalizado: {} registros", total);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.error("Error durante el stream de recetas", e);
+                throw new IOException(e);
+            }
+        }));
     }
 
     @PostMapping("/borrar")
-    public ResponseEntity<RecetaDto> delete(@RequestBody Map<String, String> requestBody) {
-        try {
-            String id = requestBody.get("id");
+    public DeferredResult<ResponseEntity<RecetaDto>> delete(@RequestBody Map<String, String> requestBody) {
+        return submitBulkhead.execute(() -> {
+            try {
+                String id = requestBody.get("id");
 
-            if (id == null || id.isEmpty()) {
-                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                if (id == null || id.isEmpty()) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+                recetaService.borrarReceta(id);
+                conditionalGet.invalidar("receta", id);
+                return new ResponseEntity<>(HttpStatus.OK);
+            } catch (CommitException e) {
+                // con MVCC_READ_CONFLICT ya se agotaron los reintentos: la receta sigue cambiando
+                logger.error("Error en /recetas/borrar", e);
+                return new ResponseEntity<>(KeyedSubmitter.isReadConflict(e)
+                        ? HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (EndorseException | SubmitException | CommitStatusException e) {
+                logger.error("Error en /recetas/borrar", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (GatewayException e) {
+                logger.error("Error en /recetas/borrar", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            } catch (Exception e) {
+                logger.error("Error en /recetas/borrar", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
             }
-            recetaService.borrarReceta(id);
-            return new ResponseEntity<>(HttpStatus.OK);
-        } catch (EndorseException | SubmitException | CommitStatusException | CommitException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        } catch (GatewayException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        });
     }
 
     @GetMapping("/obtener/paginado")
-    public ResponseEntity<ResultadoPaginado<RecetaDto>> obtenerRecetasPaginado(
+    public DeferredResult<? extends ResponseEntity<?>> obtenerRecetasPaginado(
             @RequestParam String dni,
             @RequestParam List<String> estados,
             @RequestParam(defaultValue = "10") int pageSize,
             @RequestParam(defaultValue = "") String bookmark) {
-        try {
-            ResultadoPaginado<RecetaDto> recetas = recetaService
-                    .obtenerRecetasPorDniYEstadoPaginado(dni, estados, pageSize, bookmark);
-            return new ResponseEntity<>(recetas, HttpStatus.OK);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        if (passthrough.isEnabled()) {
+            return queryBulkhead.execute(() -> {
+                try {
+                    return json(recetaService.obtenerRecetasPorDniYEstadoPaginadoJson(dni, estados, pageSize, bookmark));
+                } catch (Exception e) {
+                    logger.error("Error en /recetas/obtener/paginado", e);
+                    return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+            });
         }
+        return queryBulkhead.execute(() -> {
+            try {
+                ResultadoPaginado<RecetaDto> recetas = recetaService
+                        .obtenerRecetasPorDniYEstadoPaginado(dni, estados, pageSize, bookmark);
+                return new ResponseEntity<>(recetas, HttpStatus.OK);
+            } catch (Exception e) {
+                logger.error("Error en /recetas/obtener/paginado", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    // bytes del chaincode ya validados por el passthrough
+    static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // sin lugar para enviar o para seguir el commit: no se envio nada, se puede reintentar
+    private <T> ResponseEntity<T> ocupado() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(commitTracker.getRetryAfterSeconds()))
+                .build();
     }
 
-    private RecetaDto mapToDto(Receta receta) {
+    static RecetaDto mapToDto(Receta receta) {
         RecetaDto dto = new RecetaDto();
         dto.setId(receta.getId());
         dto.setIdentifier(receta.getIdentifier());
@@ -0,0 +1,26 @@
+package com.code.hyperledger.controllers;
+
+import com.code.hyperledger.fabric.CommitTracker;
+import com.code.hyperledger.models.EstadoTransaccion;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/transacciones")
+public class TransaccionController {
+
+    @Autowired
+    private CommitTracker commitTracker;
+
+    @GetMapping("/{txId}")
+    public ResponseEntity<EstadoTransaccion> obtenerEstado(@PathVariable String txId) {
+        EstadoTransaccion estado = commitTracker.get(txId);
+        if (estado == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(estado, HttpStatus.OK);
+    }
+}
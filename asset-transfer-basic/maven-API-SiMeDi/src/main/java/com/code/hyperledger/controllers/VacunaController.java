@@ -1,129 +1,309 @@
 package com.code.hyperledger.controllers;
 
-import com.code.hyperledger.Utils.Hashing;
+import com.code.hyperledger.Utils.IdGenerator;
+import com.code.hyperledger.Utils.NdjsonPages;
+import com.code.hyperledger.configs.BulkheadConfigProperties;
+import com.code.hyperledger.configs.PassthroughConfigProperties;
+import com.code.hyperledger.configs.StreamConfigProperties;
+import com.code.hyperledger.fabric.CommitTracker;
 import com.code.hyperledger.models.AssetIdDto;
+import com.code.hyperledger.models.EstadoTransaccion;
 import com.code.hyperledger.models.Receta;
 import com.code.hyperledger.models.RecetaDto;
 import com.code.hyperledger.models.Vacuna;
 import com.code.hyperledger.models.VacunaDto;
 import com.code.hyperledger.models.Vacuna;
 import com.code.hyperledger.services.VacunaService;
+import com.code.hyperledger.web.Bulkhead;
+import com.code.hyperledger.web.ConditionalGet;
+import com.code.hyperledger.web.FragmentosFallidos;
 
+import com.code.hyperledger.models.ResultadoCarga;
 import com.code.hyperledger.models.ResultadoPaginado;
+import com.code.hyperledger.models.ResultadoPorIds;
 
 import org.hyperledger.fabric.client.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @RestController
 @RequestMapping("/vacunas")
 public class VacunaController {
 
+    private static final Logger logger = LoggerFactory.getLogger(VacunaController.class);
+
     @Autowired
     private VacunaService vacunaService;
 
-    @PostMapping("/crear")
-    public ResponseEntity<AssetIdDto> crearVacuna(@RequestBody Vacuna vacuna) {
+    @Autowired
+    private IdGenerator idGenerator;
 
-        if (vacuna == null || vacuna.getPatientDocumentNumber() == null
-                || vacuna.getPatientDocumentNumber().isEmpty()) {
-            System.err.println("Datos de vacuna inválidos: faltan campos requeridos.");
-            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
-        }
-        String now = LocalDateTime.now().toString();
-        String dni = vacuna.getPatientDocumentNumber();
-        String id = dni + now;
-        String assetId = Hashing.sha256(id);
-        vacuna.setId(assetId);
-        AssetIdDto assetIdDto = new AssetIdDto();
-        assetIdDto.setDni(dni);
-        assetIdDto.setTimeStamp(now);
-        try {
-            vacunaService.cargarVacuna(vacuna);
-            return new ResponseEntity<>(assetIdDto, HttpStatus.OK);
-        } catch (CommitStatusException | EndorseException | CommitException | SubmitException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
-        }
+    @Autowired
+    @Qualifier("queryBulkhead")
+    private Bulkhead queryBulkhead;
+
+    @Autowired
+    @Qualifier("submitBulkhead")
+    private Bulkhead submitBulkhead;
+
+    @Autowired
+    private BulkheadConfigProperties bulkheads;
+
+    @Autowired
+    private ConditionalGet conditionalGet;
+
+    @Autowired
+    private PassthroughConfigProperties passthrough;
+
+    @Autowired
+    private StreamConfigProperties stream;
+
+    @Autowired
+    private CommitTracker commitTracker;
+
+    @PostMapping("/crear")
+    public DeferredResult<ResponseEntity<AssetIdDto>> crearVacuna(@RequestBody Vacuna vacuna,
+            @RequestParam(defaultValue = "false") boolean async) {
+        return submitBulkhead.execute(() -> {
+            if (vacuna == null || vacuna.getPatientDocumentNumber() == null
+                    || vacuna.getPatientDocumentNumber().isEmpty()) {
+                logger.warn("Datos de vacuna inválidos: faltan campos requeridos.");
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            String now = LocalDateTime.now().toString();
+            String dni = vacuna.getPatientDocumentNumber();
+            String assetId = idGenerator.nextId(dni);
+            vacuna.setId(assetId);
+            AssetIdDto assetIdDto = new AssetIdDto();
+            assetIdDto.setId(assetId);
+            assetIdDto.setDni(dni);
+            assetIdDto.setTimeStamp(now);
+            if (async) {
+                try {
+                    EstadoTransaccion estado = vacunaService.cargarVacunaAsync(vacuna);
+                    assetIdDto.setTxId(estado.getTxId());
+                    return new ResponseEntity<>(assetIdDto, HttpStatus.ACCEPTED);
+                } catch (RejectedExecutionException e) {
+                    logger.warn("Envio async de vacuna rechazado: {}", e.getMessage());
+                    return ocupado();
+                } catch (EndorseException | SubmitException e) {
+                    logger.error("Error en /vacunas/crear", e);
+                    return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+                } catch (IOException e) {
+                    logger.warn("Vacuna invalida: {}", e.getMessage());
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+            }
+            try {
+                vacunaService.cargarVacuna(vacuna);
+                return new ResponseEntity<>(assetIdDto, HttpStatus.OK);
+            } catch (CommitStatusException | EndorseException | CommitException | SubmitException e) {
+                logger.error("Error en /vacunas/crear", e);
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+        });
     }
 
-    @PostMapping("/obtener")
-    public ResponseEntity<Vacuna> obtenerVacuna(@RequestBody Map<String, String> requestBody) {
-        try {
-            String id = requestBody.get("id");
-            if (id == null || id.isEmpty()) {
+    @PostMapping("/crear/lote")
+    public DeferredResult<ResponseEntity<List<ResultadoCarga>>> crearVacunas(@RequestBody List<Vacuna> vacunas,
+            @RequestParam(defaultValue = "false") boolean async) {
+        return submitBulkhead.execute(bulkheads.getLoteTimeoutMs(), () -> {
+            for (Vacuna vacuna : vacunas) {
+                if (vacuna != null) {
+                    vacuna.setId(idGenerator.nextId(vacuna.getPatientDocumentNumber()));
+                }
+            }
+            try {
+                List<ResultadoCarga> resultados = vacunaService.cargarVacunas(vacunas, async);
+                return new ResponseEntity<>(resultados, async ? HttpStatus.ACCEPTED : HttpStatus.OK);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Lote de vacunas rechazado: {}", e.getMessage());
+                return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Lote de vacunas rechazado: {}", e.getMessage());
+                return ocupado();
+            } catch (IOException e) {
+                logger.error("Error serializando el lote de vacunas", e);
                 return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
+        });
+    }
 
-            Vacuna vacuna = vacunaService.obtenerVacuna(id);
-            return new ResponseEntity<>(vacuna, HttpStatus.OK);
-        } catch (IOException | GatewayException e) {
-            System.err.println("Error al registrar la vacuna: " + e.getMessage());
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+    @PostMapping("/obtener")
+    public DeferredResult<? extends ResponseEntity<?>> obtenerVacuna(@RequestBody Map<String, String> requestBody,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        if (passthrough.isObtener()) {
+            return obtenerJson(requestBody.get("id"), ifNoneMatch);
         }
+        return obtener(requestBody.get("id"), ifNoneMatch);
     }
 
-    @GetMapping("/all")
-    public ResponseEntity<List<Vacuna>> obtenerTodasLasVacunas() {
-        try {
-            List<Vacuna> vacunas = vacunaService.obtenerTodasLasVacunas();
-            return new ResponseEntity<>(vacunas, HttpStatus.OK);
-        } catch (IOException | GatewayException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    @GetMapping("/obtener/{id}")
+    public DeferredResult<? extends ResponseEntity<?>> obtenerVacunaPorId(@PathVariable String id,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        if (passthrough.isObtener()) {
+            return obtenerJson(id, ifNoneMatch);
         }
+        return obtener(id, ifNoneMatch);
     }
 
-    @PostMapping("/todas")
-    public ResponseEntity<List<VacunaDto>> obtenerVacunasPorIds(@RequestBody Map<String, List<String>> requestBody) {
-        try {
-            List<String> ids = requestBody.get("ids");
-            if (ids == null || ids.isEmpty()) {
-                return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
+    private DeferredResult<ResponseEntity<Vacuna>> obtener(String id, String ifNoneMatch) {
+        return queryBulkhead.execute(() -> {
+            try {
+                if (id == null || id.isEmpty()) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+
+                // el chaincode no tiene funciones que modifiquen vacunas: el ETag se guarda siempre
+                return conditionalGet.responder("vacuna", id, ifNoneMatch,
+                        () -> vacunaService.obtenerVacuna(id), vacuna -> true);
+            } catch (IOException | GatewayException e) {
+                logger.error("Error al obtener la vacuna {}", id, e);
+                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+            } catch (Exception e) {
+                logger.error("Error en /vacunas/obtener/{id}", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
             }
+        });
+    }
 
-            List<Vacuna> vacunas = vacunaService.obtenerVacunasPorIds(ids);
-            List<VacunaDto> vacunasDto = new ArrayList<>();
+    private DeferredResult<ResponseEntity<byte[]>> obtenerJson(String id, String ifNoneMatch) {
+        return queryBulkhead.execute(() -> {
+            try {
+                if (id == null || id.isEmpty()) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+                return conditionalGet.responderJson("vacuna", id, ifNoneMatch,
+                        () -> vacunaService.obtenerVacunaJson(id), json -> true);
+            } catch (IOException | GatewayException e) {
+                logger.error("Error en /vacunas/obtener/{id}", e);
+                return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+            } catch (Exception e) {
+                logger.error("Error en /vacunas/obtener/{id}", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
 
-            for (Vacuna vacuna : vacunas) {
-                vacunasDto.add(mapToDto(vacuna));
+    @GetMapping("/all")
+    public DeferredResult<ResponseEntity<List<Vacuna>>> obtenerTodasLasVacunas() {
+        return queryBulkhead.execute(() -> {
+            try {
+                List<Vacuna> vacunas = vacunaService.obtenerTodasLasVacunas();
+                return new ResponseEntity<>(vacunas, HttpStatus.OK);
+            } catch (IOException | GatewayException e) {
+                logger.error("Error en /vacunas/all", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
             }
+        });
+    }
 
-            return new ResponseEntity<>(vacunasDto, HttpStatus.OK);
-        } catch (IOException | GatewayException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    @GetMapping(value = "/stream", produces = NdjsonPages.MEDIA_TYPE)
+    public DeferredResult<ResponseEntity<Void>> streamTodas(@RequestParam(defaultValue = "100") int pageSize,
+            HttpServletResponse response) {
+        if (pageSize < 1 || pageSize > 1000) {
+            return Bulkhead.completed(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
         }
+        return queryBulkhead.execute(stream.getTimeoutMs(), NdjsonPages.task(response, out -> {
+            try {
+                long total = vacunaService.escribirTodasLasVacunas(out, pageSize);
+                logger.info("Stream de vacunas finalizado: {} registros", total);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.error("Error durante el stream de vacunas", e);
+                throw new IOException(e);
+            }
+        }));
+    }
+
+    @PostMapping("/todas")
+    public DeferredResult<? extends ResponseEntity<?>> obtenerVacunasPorIds(@RequestBody Map<String, List<String>> requestBody) {
+        return queryBulkhead.<Object>execute(() -> {
+            try {
+                List<String> ids = requestBody.get("ids");
+                if (ids == null || ids.isEmpty()) {
+                    return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
+                }
+
+                ResultadoPorIds<Vacuna> vacunas = vacunaService.obtenerVacunasPorIds(ids);
+                List<VacunaDto> vacunasDto = new ArrayList<>();
+
+                for (Vacuna vacuna : vacunas.getComponentes()) {
+                    vacunasDto.add(mapToDto(vacuna));
+                }
+                // si fallo algun fragmento se devuelve lo que se pudo leer y los fallidos van en un header
+                return FragmentosFallidos.ok(vacunas.getFallidos()).body(vacunasDto);
+            } catch (IOException | GatewayException e) {
+                logger.error("Error en /vacunas/todas", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     @GetMapping("/obtener/paginado")
-    public ResponseEntity<ResultadoPaginado<Vacuna>> obtenerVacunasPorDniPaginado(
+    public DeferredResult<? extends ResponseEntity<?>> obtenerVacunasPorDniPaginado(
             @RequestParam String dni,
             @RequestParam(defaultValue = "10") int pageSize,
             @RequestParam(defaultValue = "") String bookmark) {
-        try {
-            if (dni == null || dni.isEmpty()) {
-                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        if (passthrough.isEnabled()) {
+            return queryBulkhead.execute(() -> {
+                try {
+                    if (dni == null || dni.isEmpty()) {
+                        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                    }
+                    return json(vacunaService.obtenerVacunasPorDniPaginadoJson(dni, pageSize, bookmark));
+                } catch (IOException | GatewayException e) {
+                    logger.error("Error en /vacunas/obtener/paginado", e);
+                    return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+            });
+        }
+        return queryBulkhead.execute(() -> {
+            try {
+                if (dni == null || dni.isEmpty()) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+
+                ResultadoPaginado<Vacuna> vacunas = vacunaService.obtenerVacunasPorDniPaginado(dni, pageSize, bookmark);
+                return new ResponseEntity<>(vacunas, HttpStatus.OK);
+            } catch (IOException | GatewayException e) {
+                logger.error("Error en /vacunas/obtener/paginado", e);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
             }
+        });
+    }
 
-            ResultadoPaginado<Vacuna> vacunas = vacunaService.obtenerVacunasPorDniPaginado(dni, pageSize, bookmark);
-            return new ResponseEntity<>(vacunas, HttpStatus.OK);
-        } catch (IOException | GatewayException e) {
-            e.printStackTrace();
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    // bytes del chaincode ya validados por el passthrough
+    static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // sin lugar para enviar o para seguir el commit: no se envio nada, se puede reintentar
+    private <T> ResponseEntity<T> ocupado() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(commitTracker.getRetryAfterSeconds()))
+                .build();
     }
 
-    private VacunaDto mapToDto(Vacuna vacuna) {
+    static VacunaDto mapToDto(Vacuna vacuna) {
         VacunaDto dto = new VacunaDto();
         dto.setIdentificador(vacuna.getIdentifier());
         dto.setStatus(vacuna.getStatus());
@@ -0,0 +1,59 @@
+package com.code.hyperledger.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.hyperledger.fabric.client.ChaincodeEvent;
+
+/**
+ * Evento del chaincode con el payload ya parseado (una sola vez para todos
+ * los handlers) y la clave que define su orden de entrega.
+ */
+public class LedgerEvent {
+
+    private final ChaincodeEvent event;
+    private final JsonNode payload;
+    private final String key;
+
+    LedgerEvent(ChaincodeEvent event, JsonNode payload, String key) {
+        this.event = event;
+        this.payload = payload;
+        this.key = key;
+    }
+
+    public String getEventName() {
+        return event.getEventName();
+    }
+
+    public long getBlockNumber() {
+        return event.getBlockNumber();
+    }
+
+    public String getTransactionId() {
+        return event.getTransactionId();
+    }
+
+    public ChaincodeEvent getChaincodeEvent() {
+        return event;
+    }
+
+    /**
+     * El payload como JSON, o null si vino vacio o no es JSON.
+     */
+    public JsonNode getPayload() {
+        return payload;
+    }
+
+    /**
+     * Campo de texto del payload, o null si no esta.
+     */
+    public String getText(String field) {
+        JsonNode value = payload == null ? null : payload.get(field);
+        return value != null && value.isTextual() ? value.asText() : null;
+    }
+
+    /**
+     * El "id" del registro del payload, o el ID de transaccion si no tiene.
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,364 @@
+package com.code.hyperledger.events;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.fabric.FabricConnectionManager;
+import com.code.hyperledger.fabric.FabricMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.client.ChaincodeEvent;
+import org.hyperledger.fabric.client.CloseableIterator;
+import org.hyperledger.fabric.client.FileCheckpointer;
+import org.hyperledger.fabric.client.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unico lector de los eventos del chaincode para todos los
+ * {@link LedgerEventHandler} registrados. Un hilo lee el stream y reparte
+ * cada evento entre hilos de despacho segun handler y clave, asi los de un
+ * mismo registro se procesan en orden y los demas en paralelo. Con las colas
+ * llenas deja de leer y el peer frena el stream.
+ * El checkpoint (FileCheckpointer) avanza solo hasta el ultimo evento que
+ * terminaron todos sus handlers y todos los anteriores; al reiniciar o
+ * reconectar se retoma desde ahi, sin huecos. Un handler que falla se
+ * reintenta con backoff en su hilo, frenando los eventos de la misma clave;
+ * si agota los intentos el checkpoint no pasa de ese evento, que se vuelve a
+ * entregar (con los posteriores) en la proxima conexion.
+ */
+@Component
+public class LedgerEventConsumer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerEventConsumer.class);
+
+    private static class Dispatch {
+        final long sequence;
+        final ChaincodeEvent event;
+        final AtomicInteger remaining;
+        // lo terminaron todos sus handlers, con o sin exito
+        volatile boolean done;
+        volatile boolean failed;
+
+        Dispatch(long sequence, ChaincodeEvent event, int handlers) {
+            this.sequence = sequence;
+            this.event = event;
+            this.remaining = new AtomicInteger(handlers);
+        }
+    }
+
+    private final FabricConnectionManager connections;
+    private final FabricConfigProperties fabricConfig;
+    private final FabricConfigProperties.Events config;
+    private final FabricMetrics metrics;
+    private final List<LedgerEventHandler> handlers;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // eventos despachados en orden de llegada, hasta que los procesan todos sus handlers
+    private final ConcurrentSkipListMap<Long, Dispatch> inFlight = new ConcurrentSkipListMap<>();
+    private final Object checkpointLock = new Object();
+    private long sequence;
+    private ChaincodeEvent lastCompleted;
+    private ChaincodeEvent lastCheckpointed;
+    private long lastCheckpointAt;
+
+    private final List<BlockingQueue<Runnable>> lanes = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private FileCheckpointer checkpointer;
+    private volatile boolean running;
+    private volatile CloseableIterator<ChaincodeEvent> events;
+
+    public LedgerEventConsumer(FabricConnectionManager connections, FabricConfigProperties fabricConfig,
+            FabricMetrics metrics, List<LedgerEventHandler> handlers) {
+        this.connections = connections;
+        this.fabricConfig = fabricConfig;
+        this.config = fabricConfig.getEvents();
+        this.metrics = metrics;
+        this.handlers = handlers;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!config.isEnabled() || handlers.isEmpty()) {
+            return;
+        }
+        if (config.getCheckpointFile() != null && !config.getCheckpointFile().isEmpty()) {
+            Path path = Paths.get(config.getCheckpointFile());
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            checkpointer = new FileCheckpointer(path);
+        }
+        running = true;
+        metrics.eventsInFlight(inFlight::size);
+        for (int i = 0; i < Math.max(1, config.getLanes()); i++) {
+            BlockingQueue<Runnable> lane = new ArrayBlockingQueue<>(Math.max(1, config.getLaneCapacity()));
+            lanes.add(lane);
+            threads.add(thread("ledger-events-" + (i + 1), () -> drainLane(lane)));
+        }
+        threads.add(thread("ledger-events", this::listen));
+        List<String> names = new ArrayList<>();
+        for (LedgerEventHandler handler : handlers) {
+            names.add(handler.getName());
+        }
+        logger.info("Eventos del chaincode: handlers {}, retomando desde el bloque {}", names,
+                checkpointer == null ? "actual" : checkpointer.getBlockNumber());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        CloseableIterator<ChaincodeEvent> current = events;
+        if (current != null) {
+            current.close();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        synchronized (checkpointLock) {
+            saveCheckpoint();
+            if (checkpointer != null) {
+                try {
+                    checkpointer.close();
+                } catch (IOException e) {
+                    logger.warn("Error cerrando el checkpoint de eventos", e);
+                }
+            }
+        }
+    }
+
+    private static Thread thread(String name, Runnable body) {
+        Thread thread = new Thread(body, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void listen() {
+        long backoff = 1000;
+        boolean first = true;
+        while (running) {
+            boolean resumed = false;
+            try {
+                Network network = connections.getNetwork();
+                CloseableIterator<ChaincodeEvent> iterator;
+                if (checkpointer != null) {
+                    iterator = network.newChaincodeEventsRequest(fabricConfig.getChaincodeName())
+                            .checkpoint(checkpointer)
+                            .build()
+                            .getEvents();
+                    resumed = true;
+                } else {
+                    iterator = network.getChaincodeEvents(fabricConfig.getChaincodeName());
+                }
+                if (!first && !resumed) {
+                    for (LedgerEventHandler handler : handlers) {
+                        handler.eventsLost();
+                    }
+                }
+                first = false;
+                try (CloseableIterator<ChaincodeEvent> current = iterator) {
+                    events = current;
+                    backoff = 1000;
+                    while (running && current.hasNext()) {
+                        dispatch(current.next());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Se perdio la conexion de eventos del chaincode, reintentando en {} ms", backoff, e);
+            }
+            try {
+                // se reconecta desde el checkpoint recien cuando termino todo lo despachado
+                awaitDrained();
+                Thread.sleep(backoff);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = Math.min(backoff * 2, config.getMaxBackoffMs());
+        }
+    }
+
+    private void dispatch(ChaincodeEvent event) throws InterruptedException {
+        JsonNode payload = parse(event.getPayload());
+        JsonNode id = payload == null ? null : payload.get("id");
+        String key = id != null && id.isTextual() ? id.asText() : event.getTransactionId();
+        LedgerEvent ledgerEvent = new LedgerEvent(event, payload, key);
+
+        List<LedgerEventHandler> targets = new ArrayList<>(handlers.size());
+        for (LedgerEventHandler handler : handlers) {
+            if (handler.getEventNames().isEmpty() || handler.getEventNames().contains(event.getEventName())) {
+                targets.add(handler);
+            }
+        }
+        Dispatch dispatch;
+        synchronized (checkpointLock) {
+            dispatch = new Dispatch(sequence++, event, targets.size());
+            inFlight.put(dispatch.sequence, dispatch);
+        }
+        if (targets.isEmpty()) {
+            completed(dispatch);
+            return;
+        }
+        for (LedgerEventHandler handler : targets) {
+            int lane = Math.floorMod(31 * handler.getName().hashCode() + key.hashCode(), lanes.size());
+            lanes.get(lane).put(() -> handle(handler, ledgerEvent, dispatch));
+        }
+    }
+
+    private void drainLane(BlockingQueue<Runnable> lane) {
+        while (running) {
+            try {
+                Runnable task = lane.poll(config.getCheckpointIntervalMs(), TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run();
+                } else {
+                    // sin eventos: se guarda lo que haya quedado pendiente por el intervalo
+                    synchronized (checkpointLock) {
+                        saveCheckpoint();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void handle(LedgerEventHandler handler, LedgerEvent event, Dispatch dispatch) {
+        try {
+            if (!handleWithRetries(handler, event)) {
+                dispatch.failed = true;
+            }
+        } finally {
+            if (dispatch.remaining.decrementAndGet() == 0) {
+                completed(dispatch);
+            }
+        }
+    }
+
+    private boolean handleWithRetries(LedgerEventHandler handler, LedgerEvent event) {
+        int maxAttempts = Math.max(1, config.getHandlerMaxAttempts());
+        long backoff = config.getHandlerBackoffMs();
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            boolean success = false;
+            try {
+                handler.handle(event);
+                success = true;
+                return true;
+            } catch (Exception e) {
+                if (attempt >= maxAttempts || !running) {
+                    logger.error("El handler {} fallo {} veces con el evento {} de la transaccion {}; el checkpoint"
+                            + " queda antes de este evento", handler.getName(), attempt, event.getEventName(),
+                            event.getTransactionId(), e);
+                    return false;
+                }
+                logger.warn("El handler {} fallo con el evento {} de la transaccion {}, reintento {} en {} ms",
+                        handler.getName(), event.getEventName(), event.getTransactionId(), attempt, backoff, e);
+            } finally {
+                metrics.eventHandled(handler.getName(), success, start);
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            backoff = Math.min(backoff * 2, config.getMaxBackoffMs());
+        }
+    }
+
+    private void completed(Dispatch dispatch) {
+        dispatch.done = true;
+        synchronized (checkpointLock) {
+            Map.Entry<Long, Dispatch> first;
+            // un evento fallido frena el checkpoint aunque los posteriores ya esten terminados
+            while ((first = inFlight.firstEntry()) != null && first.getValue().done && !first.getValue().failed) {
+                inFlight.remove(first.getKey());
+                lastCompleted = first.getValue().event;
+            }
+            if (first != null && first.getValue().failed && !dispatch.failed) {
+                // detras de un fallido no mueve el checkpoint en esta conexion: no hace falta guardarlo
+                inFlight.remove(dispatch.sequence);
+            }
+            if (System.currentTimeMillis() - lastCheckpointAt >= config.getCheckpointIntervalMs()) {
+                saveCheckpoint();
+            }
+            if (pending() == 0) {
+                checkpointLock.notifyAll();
+            }
+        }
+    }
+
+    // con checkpointLock tomado: eventos que algun handler todavia no termino
+    private int pending() {
+        int pending = 0;
+        for (Dispatch dispatch : inFlight.values()) {
+            if (!dispatch.done) {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    private void awaitDrained() throws InterruptedException {
+        synchronized (checkpointLock) {
+            while (running && pending() > 0) {
+                checkpointLock.wait(100);
+            }
+            saveCheckpoint();
+            if (!inFlight.isEmpty()) {
+                // lo que queda empieza en un evento fallido: la nueva conexion lo entrega de nuevo desde el checkpoint
+                logger.warn("Se reintentan {} eventos desde el checkpoint por handlers fallidos", inFlight.size());
+                inFlight.clear();
+            }
+        }
+    }
+
+    // con checkpointLock tomado
+    private void saveCheckpoint() {
+        if (checkpointer == null || lastCompleted == null || lastCompleted == lastCheckpointed) {
+            return;
+        }
+        try {
+            checkpointer.checkpointChaincodeEvent(lastCompleted);
+            lastCheckpointed = lastCompleted;
+            lastCheckpointAt = System.currentTimeMillis();
+        } catch (IOException e) {
+            logger.warn("No se pudo guardar el checkpoint de eventos", e);
+        }
+    }
+
+    private JsonNode parse(byte[] payload) {
+        if (payload == null || payload.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(payload);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.code.hyperledger.events;
+
+import java.util.Set;
+
+/**
+ * Reacciona a los eventos del chaincode que recibe el {@link LedgerEventConsumer}.
+ * Los eventos con la misma clave le llegan de a uno y en orden; los de claves
+ * distintas pueden procesarse en paralelo. La entrega es al menos una vez
+ * (despues de una caida se repiten los posteriores al ultimo checkpoint), asi
+ * que procesar dos veces el mismo evento no tiene que cambiar el resultado.
+ */
+public interface LedgerEventHandler {
+
+    String getName();
+
+    /**
+     * Nombres de evento que le interesan; vacio para recibir todos.
+     */
+    Set<String> getEventNames();
+
+    /**
+     * Si lanza una excepcion se reintenta con backoff (fabric.events.handlerMaxAttempts);
+     * si sigue fallando el checkpoint no pasa de este evento y se vuelve a entregar.
+     */
+    void handle(LedgerEvent event) throws Exception;
+
+    /**
+     * Se reconecto sin un checkpoint desde donde retomar: los eventos
+     * emitidos mientras no habia conexion no van a llegar.
+     */
+    default void eventsLost() {
+    }
+}
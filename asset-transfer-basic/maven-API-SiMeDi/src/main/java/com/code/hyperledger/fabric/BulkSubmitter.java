@@ -0,0 +1,180 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.models.EstadoTransaccion;
+import com.code.hyperledger.models.ResultadoCarga;
+import com.code.hyperledger.tracing.TraceContext;
+import org.hyperledger.fabric.client.Status;
+import org.hyperledger.fabric.client.SubmittedTransaction;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envia muchas transacciones del mismo tipo en paralelo, con un limite global
+ * de endorsements/envios simultaneos. El commit se espera despues de haber
+ * enviado todo el lote, asi el tiempo total se acerca al de corte de bloques
+ * del orderer y no a la suma de las latencias individuales. La cola de
+ * transacciones esperando un hilo esta acotada y un lote entra completo o no
+ * entra: si no hay lugar se rechaza sin enviar nada. Si se interrumpe al hilo
+ * que espera el lote (vencio el request) lo que todavia no salio ya no se envia.
+ */
+@Component
+public class BulkSubmitter {
+
+    public static final class Item {
+        private final int indice;
+        private final String id;
+        private final String[] args;
+
+        public Item(int indice, String id, String... args) {
+            this.indice = indice;
+            this.id = id;
+            this.args = args;
+        }
+    }
+
+    private final FabricConnectionManager connections;
+    private final CommitTracker commitTracker;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final int maxItems;
+
+    public BulkSubmitter(FabricConnectionManager connections, CommitTracker commitTracker,
+            FabricConfigProperties config) {
+        this.connections = connections;
+        this.commitTracker = commitTracker;
+        this.maxItems = config.getBulk().getMaxItems();
+        int threads = Math.max(1, config.getBulk().getMaxConcurrency());
+        // al menos un lote de maxItems tiene que poder entrar
+        int queueCapacity = Math.max(maxItems, config.getBulk().getQueueCapacity());
+        this.slots = new Semaphore(threads + queueCapacity);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "bulk-submit-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Con async=true no se espera el commit: cada transaccion queda registrada en el
+     * CommitTracker y se informa como PENDIENTE. Si el CommitTracker no tiene lugar
+     * para todo el lote, o la cola de envios esta llena, no se envia nada
+     * (RejectedExecutionException). Interrumpido, deja de esperar y termina con
+     * CancellationException; lo ya enviado en modo async queda en el CommitTracker.
+     */
+    public List<ResultadoCarga> submitAll(String function, List<Item> items, boolean async) {
+        if (!slots.tryAcquire(items.size())) {
+            throw new RejectedExecutionException("Demasiadas transacciones de lotes esperando para enviarse");
+        }
+        if (async) {
+            try {
+                commitTracker.reservar(items.size());
+            } catch (RejectedExecutionException e) {
+                slots.release(items.size());
+                throw e;
+            }
+        }
+        AtomicBoolean cancelado = new AtomicBoolean();
+        List<CompletableFuture<SubmittedTransaction>> submitted = new ArrayList<>(items.size());
+        for (Item item : items) {
+            submitted.add(CompletableFuture.supplyAsync(TraceContext.propagate(IdentityContext.propagate(() -> {
+                try {
+                    if (cancelado.get()) {
+                        throw new CancellationException("Lote cancelado antes de enviar la transaccion");
+                    }
+                    return connections.submitAsync(function, item.args);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                } finally {
+                    slots.release();
+                }
+            })), executor));
+        }
+
+        List<ResultadoCarga> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            ResultadoCarga result = new ResultadoCarga();
+            result.setIndice(items.get(i).indice);
+            result.setId(items.get(i).id);
+            try {
+                // un future ya resuelto no mira la interrupcion
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                SubmittedTransaction transaction = submitted.get(i).get();
+                result.setTxId(transaction.getTransactionId());
+                if (async) {
+                    result.setEstado(commitTracker.track(function, transaction).getEstado());
+                } else {
+                    Status status = connections.commitStatus(function, transaction);
+                    result.setCodigo(status.getCode().name());
+                    result.setEstado(status.isSuccessful() ? EstadoTransaccion.CONFIRMADA : EstadoTransaccion.RECHAZADA);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelado.set(true);
+                if (async) {
+                    seguirEnviadas(function, submitted.subList(i, submitted.size()));
+                }
+                throw new CancellationException("Lote interrumpido esperando los envios");
+            } catch (ExecutionException e) {
+                if (async) {
+                    // no se envio: no ocupa lugar en el CommitTracker
+                    commitTracker.liberar(1);
+                }
+                result.setEstado(EstadoTransaccion.ERROR);
+                result.setError(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            } catch (Exception e) {
+                result.setEstado(EstadoTransaccion.ERROR);
+                result.setError(e.getMessage());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Las transacciones que igual se envien pasan al CommitTracker; las que no, liberan su lugar.
+     */
+    private void seguirEnviadas(String function, List<CompletableFuture<SubmittedTransaction>> pendientes) {
+        for (CompletableFuture<SubmittedTransaction> pendiente : pendientes) {
+            pendiente.whenComplete((transaction, error) -> {
+                if (error == null) {
+                    commitTracker.track(function, transaction);
+                } else {
+                    commitTracker.liberar(1);
+                }
+            });
+        }
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
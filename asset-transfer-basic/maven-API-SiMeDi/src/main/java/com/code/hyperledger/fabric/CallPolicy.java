@@ -0,0 +1,59 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import io.grpc.CallOptions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Politica de una funcion del chaincode: la entrada de la funcion en
+ * fabric.policies.functions completada con fabric.policies.defaults.
+ */
+final class CallPolicy {
+
+    final long evaluateTimeoutMs;
+    final long endorseTimeoutMs;
+    final long submitTimeoutMs;
+    final long commitStatusTimeoutMs;
+    final int maxAttempts;
+    final long backoffMs;
+    final long maxBackoffMs;
+    final boolean hedge;
+    final long hedgeMinDelayMs;
+
+    private CallPolicy(FabricConfigProperties.Policy function, FabricConfigProperties.Policy defaults) {
+        evaluateTimeoutMs = pick(function.getEvaluateTimeoutMs(), defaults.getEvaluateTimeoutMs());
+        endorseTimeoutMs = pick(function.getEndorseTimeoutMs(), defaults.getEndorseTimeoutMs());
+        submitTimeoutMs = pick(function.getSubmitTimeoutMs(), defaults.getSubmitTimeoutMs());
+        commitStatusTimeoutMs = pick(function.getCommitStatusTimeoutMs(), defaults.getCommitStatusTimeoutMs());
+        maxAttempts = Math.max(1, pick(function.getMaxAttempts(), defaults.getMaxAttempts()));
+        backoffMs = pick(function.getBackoffMs(), defaults.getBackoffMs());
+        maxBackoffMs = pick(function.getMaxBackoffMs(), defaults.getMaxBackoffMs());
+        hedge = pick(function.getHedge(), defaults.getHedge());
+        hedgeMinDelayMs = pick(function.getHedgeMinDelayMs(), defaults.getHedgeMinDelayMs());
+    }
+
+    static CallPolicy resolve(FabricConfigProperties.Policies policies, String function) {
+        FabricConfigProperties.Policy own = policies.getFunctions().get(function);
+        return new CallPolicy(own != null ? own : new FabricConfigProperties.Policy(), policies.getDefaults());
+    }
+
+    static UnaryOperator<CallOptions> deadline(long timeoutMs) {
+        return options -> options.withDeadlineAfter(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Espera antes del reintento numero attempt (1 = primer reintento), al
+     * azar entre la mitad y el total del backoff exponencial.
+     */
+    long backoff(int attempt) {
+        long max = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        return max / 2 + ThreadLocalRandom.current().nextLong(max / 2 + 1);
+    }
+
+    private static <T> T pick(T value, T fallback) {
+        return value != null ? value : fallback;
+    }
+}
@@ -0,0 +1,153 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.models.EstadoTransaccion;
+import com.code.hyperledger.tracing.TraceContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hyperledger.fabric.client.EndorseException;
+import org.hyperledger.fabric.client.Status;
+import org.hyperledger.fabric.client.SubmitException;
+import org.hyperledger.fabric.client.SubmittedTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sigue en segundo plano el estado de commit de las transacciones enviadas
+ * con submitAsync, para que el hilo del request no quede esperando al orderer.
+ * La espera queda en la traza del request aunque este ya haya respondido.
+ * Las esperas en curso estan acotadas (threads + queueCapacity): el lugar se
+ * reserva antes de enviar, asi una transaccion rechazada nunca llega al
+ * orderer y el cliente puede reintentarla sin duplicarla.
+ */
+@Component
+public class CommitTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommitTracker.class);
+
+    private final Cache<String, EstadoTransaccion> transactions;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final int retryAfterSeconds;
+    private final FabricConnectionManager connections;
+
+    public CommitTracker(FabricConfigProperties config, FabricConnectionManager connections) {
+        this.connections = connections;
+        FabricConfigProperties.CommitTracker trackerConfig = config.getCommitTracker();
+        this.transactions = Caffeine.newBuilder()
+                .maximumSize(trackerConfig.getMaxEntries())
+                .expireAfterWrite(Duration.ofMinutes(trackerConfig.getRetentionMinutes()))
+                .build();
+        int threads = Math.max(1, trackerConfig.getThreads());
+        int queueCapacity = Math.max(1, trackerConfig.getQueueCapacity());
+        this.slots = new Semaphore(threads + queueCapacity);
+        this.retryAfterSeconds = trackerConfig.getRetryAfterSeconds();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "commit-tracker-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Envia sin esperar el commit y lo sigue en segundo plano. Sin lugar para
+     * seguirla la transaccion no se envia: RejectedExecutionException.
+     */
+    public EstadoTransaccion submit(String function, String... args) throws EndorseException, SubmitException {
+        reservar(1);
+        SubmittedTransaction commit;
+        try {
+            commit = connections.submitAsync(function, args);
+        } catch (EndorseException | SubmitException | RuntimeException e) {
+            liberar(1);
+            throw e;
+        }
+        return track(function, commit);
+    }
+
+    /**
+     * Reserva lugar para seguir n transacciones, todo o nada. Cada una se
+     * sigue con {@link #track} o, si no se llega a enviar, se libera.
+     */
+    public void reservar(int n) {
+        if (!slots.tryAcquire(n)) {
+            throw new RejectedExecutionException("Demasiadas transacciones esperando el commit");
+        }
+    }
+
+    public void liberar(int n) {
+        slots.release(n);
+    }
+
+    /**
+     * Con un lugar ya reservado.
+     */
+    public EstadoTransaccion track(String function, SubmittedTransaction commit) {
+        String txId = commit.getTransactionId();
+        EstadoTransaccion estado = new EstadoTransaccion(txId, function, EstadoTransaccion.PENDIENTE,
+                null, null, Instant.now().toString(), null, null);
+        transactions.put(txId, estado);
+        executor.execute(TraceContext.wrap(() -> {
+            try {
+                waitForCommit(estado, commit);
+            } finally {
+                slots.release();
+            }
+        }));
+        return copy(estado);
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public EstadoTransaccion get(String txId) {
+        EstadoTransaccion estado = transactions.getIfPresent(txId);
+        return estado == null ? null : copy(estado);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void waitForCommit(EstadoTransaccion estado, SubmittedTransaction commit) {
+        EstadoTransaccion result = copy(estado);
+        try {
+            Status status = connections.commitStatus(estado.getFuncion(), commit);
+            result.setCodigo(status.getCode().name());
+            result.setBloque(status.getBlockNumber());
+            result.setEstado(status.isSuccessful() ? EstadoTransaccion.CONFIRMADA : EstadoTransaccion.RECHAZADA);
+        } catch (Exception e) {
+            logger.warn("No se pudo obtener el estado de commit de {} ({})", estado.getTxId(), estado.getFuncion(), e);
+            result.setEstado(EstadoTransaccion.ERROR);
+            result.setError(e.getMessage());
+        }
+        result.setFinalizada(Instant.now().toString());
+        // se reemplaza la entrada completa para que los lectores nunca vean un estado a medio escribir
+        transactions.put(result.getTxId(), result);
+    }
+
+    private static EstadoTransaccion copy(EstadoTransaccion estado) {
+        return new EstadoTransaccion(estado.getTxId(), estado.getFuncion(), estado.getEstado(), estado.getCodigo(),
+                estado.getBloque(), estado.getEnviada(), estado.getFinalizada(), estado.getError());
+    }
+}
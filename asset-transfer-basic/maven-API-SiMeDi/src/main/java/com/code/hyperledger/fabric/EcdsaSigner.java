@@ -0,0 +1,140 @@
+package com.code.hyperledger.fabric;
+
+import org.hyperledger.fabric.client.identity.Signer;
+import org.hyperledger.fabric.client.identity.Signers;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECPrivateKey;
+
+/**
+ * Firma ECDSA con la clave ya inicializada: cada hilo arma una sola vez su
+ * Signature (getInstance + initSign) y la reusa, en lugar de crearla en cada
+ * firma como el signer de fabric-gateway. Igual que ese signer, deja la
+ * firma con S bajo (S <= n/2), que es la unica forma que aceptan los peers.
+ */
+final class EcdsaSigner implements Signer {
+
+    private final BigInteger order;
+    private final BigInteger halfOrder;
+    private final ThreadLocal<Signature> signatures;
+
+    private EcdsaSigner(ECPrivateKey privateKey) {
+        this.order = privateKey.getParams().getOrder();
+        this.halfOrder = order.shiftRight(1);
+        this.signatures = ThreadLocal.withInitial(() -> {
+            try {
+                // el digest ya viene calculado por el Gateway
+                Signature signature = Signature.getInstance("NONEwithECDSA");
+                signature.initSign(privateKey);
+                return signature;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("No se pudo inicializar la firma ECDSA", e);
+            }
+        });
+    }
+
+    /**
+     * Para claves EC usa este signer; para el resto (por ejemplo Ed25519) el
+     * de fabric-gateway.
+     */
+    static Signer of(PrivateKey privateKey) throws GeneralSecurityException {
+        if (privateKey instanceof ECPrivateKey) {
+            EcdsaSigner signer = new EcdsaSigner((ECPrivateKey) privateKey);
+            // falla al arrancar y no en la primera transaccion si el proveedor no soporta la clave
+            signer.signatures.get();
+            return signer;
+        }
+        return Signers.newPrivateKeySigner(privateKey);
+    }
+
+    @Override
+    public byte[] sign(byte[] digest) throws GeneralSecurityException {
+        Signature signature = signatures.get();
+        signature.update(digest);
+        return lowS(signature.sign());
+    }
+
+    /**
+     * Reescribe la firma DER (SEQUENCE { INTEGER r, INTEGER s }) con s = n - s
+     * si s esta en la mitad alta del orden de la curva.
+     */
+    byte[] lowS(byte[] der) throws SignatureException {
+        int[] position = { 0 };
+        if (der[position[0]++] != 0x30) {
+            throw new SignatureException("Firma ECDSA con formato DER invalido");
+        }
+        readLength(der, position);
+        BigInteger r = readInteger(der, position);
+        BigInteger s = readInteger(der, position);
+        if (s.compareTo(halfOrder) <= 0) {
+            return der;
+        }
+        byte[] rBytes = r.toByteArray();
+        byte[] sBytes = order.subtract(s).toByteArray();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(rBytes.length + sBytes.length + 6);
+        writeInteger(body, rBytes);
+        writeInteger(body, sBytes);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + 3);
+        out.write(0x30);
+        writeLength(out, body.size());
+        out.writeBytes(body.toByteArray());
+        return out.toByteArray();
+    }
+
+    private static BigInteger readInteger(byte[] der, int[] position) throws SignatureException {
+        if (position[0] >= der.length || der[position[0]++] != 0x02) {
+            throw new SignatureException("Firma ECDSA con formato DER invalido");
+        }
+        int length = readLength(der, position);
+        if (position[0] + length > der.length) {
+            throw new SignatureException("Firma ECDSA con formato DER invalido");
+        }
+        byte[] value = new byte[length];
+        System.arraycopy(der, position[0], value, 0, length);
+        position[0] += length;
+        return new BigInteger(value);
+    }
+
+    private static int readLength(byte[] der, int[] position) throws SignatureException {
+        if (position[0] >= der.length) {
+            throw new SignatureException("Firma ECDSA con formato DER invalido");
+        }
+        int first = der[position[0]++] & 0xff;
+        if (first < 0x80) {
+            return first;
+        }
+        int bytes = first & 0x7f;
+        if (bytes > 2 || position[0] + bytes > der.length) {
+            throw new SignatureException("Firma ECDSA con formato DER invalido");
+        }
+        int length = 0;
+        for (int i = 0; i < bytes; i++) {
+            length = (length << 8) | (der[position[0]++] & 0xff);
+        }
+        return length;
+    }
+
+    private static void writeInteger(ByteArrayOutputStream out, byte[] value) {
+        out.write(0x02);
+        writeLength(out, value.length);
+        out.writeBytes(value);
+    }
+
+    private static void writeLength(ByteArrayOutputStream out, int length) {
+        if (length < 0x80) {
+            out.write(length);
+        } else if (length < 0x100) {
+            out.write(0x81);
+            out.write(length);
+        } else {
+            out.write(0x82);
+            out.write(length >> 8);
+            out.write(length & 0xff);
+        }
+    }
+}
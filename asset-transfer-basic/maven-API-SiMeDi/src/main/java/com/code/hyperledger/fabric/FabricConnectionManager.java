@@ -0,0 +1,554 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.models.FabricPoolStats;
+import com.code.hyperledger.tracing.Span;
+import com.code.hyperledger.tracing.TraceContext;
+import com.code.hyperledger.tracing.Tracer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.grpc.Context;
+import org.hyperledger.fabric.client.Commit;
+import org.hyperledger.fabric.client.CommitException;
+import org.hyperledger.fabric.client.CommitStatusException;
+import org.hyperledger.fabric.client.Contract;
+import org.hyperledger.fabric.client.EndorseException;
+import org.hyperledger.fabric.client.GatewayException;
+import org.hyperledger.fabric.client.Network;
+import org.hyperledger.fabric.client.Proposal;
+import org.hyperledger.fabric.client.Status;
+import org.hyperledger.fabric.client.SubmitException;
+import org.hyperledger.fabric.client.SubmittedTransaction;
+import org.hyperledger.fabric.client.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dueño unico de las conexiones contra Fabric. Por cada peer configurado abre
+ * un pool fijo de canales gRPC, cada uno con su Gateway, y reparte las
+ * llamadas entre los peers sanos segun la estrategia configurada. Si un peer
+ * no responde (UNAVAILABLE o DEADLINE_EXCEEDED) queda fuera de la rotacion
+ * durante un tiempo y la llamada se reintenta en el siguiente.
+ * Deadlines, reintentos con backoff y consultas de respaldo (hedging) salen
+ * de la politica de cada funcion (fabric.policies).
+ * Cada envio firma con la identidad de {@link IdentityContext}: las de
+ * fabric.identities abren sus Gateways la primera vez que se usan, sobre los
+ * mismos canales, y los cierran cuando quedan entre las menos usadas.
+ * En los requests muestreados cada fase (armado de la propuesta, endorse,
+ * envio al orderer, estado de commit) es un span con el transactionId.
+ */
+@Component
+public class FabricConnectionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(FabricConnectionManager.class);
+
+    @FunctionalInterface
+    private interface PeerCall<T, E extends Exception> {
+        T call(Contract contract) throws E;
+    }
+
+    private final FabricConfigProperties config;
+    private final FabricConnector connector;
+    private final FabricMetrics metrics;
+    private final Tracer tracer;
+    private final List<FabricPeer> peers = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, CallPolicy> policies = new ConcurrentHashMap<>();
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor hedgeExecutor;
+    private final ScheduledExecutorService hedgeTimer;
+    private final Cache<String, IdentityGateways> identities;
+
+    public FabricConnectionManager(FabricConfigProperties config, FabricConnector connector, FabricMetrics metrics,
+            Tracer tracer) {
+        this.config = config;
+        this.connector = connector;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        // la consulta original corre en el hilo del request; aca solo las de respaldo, sin cola:
+        // con todos los hilos ocupados se rechaza y la consulta sigue sin respaldo
+        this.hedgeExecutor = new ThreadPoolExecutor(0, Math.max(1, config.getPolicies().getHedgeThreads()),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), daemon("fabric-hedge-"));
+        this.hedgeTimer = Executors.newSingleThreadScheduledExecutor(daemon("fabric-hedge-timer-"));
+        FabricConfigProperties.IdentityPool identityPool = config.getIdentityPool();
+        this.identities = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, identityPool.getMaxActive()))
+                .expireAfterAccess(Duration.ofMinutes(identityPool.getIdleMinutes()))
+                .removalListener((String name, IdentityGateways gateways, RemovalCause cause) -> {
+                    if (gateways != null) {
+                        gateways.close();
+                        metrics.identity(cause == RemovalCause.EXPLICIT ? "closed" : "evicted");
+                    }
+                })
+                .build();
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        int size = Math.max(1, config.getPool().getSize());
+        int id = 0;
+        for (FabricConfigProperties.Peer peerConfig : configuredPeers()) {
+            FabricPeer peer = new FabricPeer(peerConfig.getEndpoint());
+            for (int i = 0; i < size; i++) {
+                peer.addConnection(connector.connect(id++, peerConfig));
+            }
+            peers.add(peer);
+            logger.info("Pool de Fabric: {} conexiones contra {}", size, peerConfig.getEndpoint());
+        }
+    }
+
+    /**
+     * Evalua la transaccion en un peer sano, pasando al siguiente si el elegido
+     * no responde. Con la identidad por defecto, sea cual sea la del request.
+     */
+    public byte[] evaluateTransaction(String name, String... args) throws GatewayException {
+        try (IdentityContext.Scope scope = IdentityContext.use(null)) {
+            return evaluateWithDefaultIdentity(name, args);
+        }
+    }
+
+    private byte[] evaluateWithDefaultIdentity(String name, String... args) throws GatewayException {
+        return tracer.inSpan("fabric.evaluate", span -> {
+            span.tag(Tracer.FUNCTION, name);
+            metrics.requestPayload(name, args);
+            CallPolicy policy = policy(name);
+            byte[] result = metrics.time(name, FabricMetrics.EVALUATE,
+                    () -> withRetry(name, FabricMetrics.EVALUATE, policy, () -> evaluate(name, args, policy)));
+            metrics.responsePayload(name, result);
+            return result;
+        });
+    }
+
+    /**
+     * Endorse, envio al orderer y espera del commit, cada fase medida por separado.
+     */
+    public byte[] submitTransaction(String name, String... args)
+            throws EndorseException, SubmitException, CommitStatusException, CommitException {
+        SubmittedTransaction submitted = submitAsync(name, args);
+        Status status = commitStatus(name, submitted);
+        if (!status.isSuccessful()) {
+            throw new CommitException(status);
+        }
+        byte[] result = submitted.getResult();
+        metrics.responsePayload(name, result);
+        return result;
+    }
+
+    /**
+     * Vuelve apenas el orderer acepta la transaccion, sin esperar el commit.
+     * Solo el endorsement se reintenta en otro peer: una vez enviada al orderer
+     * la transaccion no se puede repetir sin riesgo de duplicarla.
+     */
+    public SubmittedTransaction submitAsync(String name, String... args) throws EndorseException, SubmitException {
+        Span span = tracer.startSpan("fabric.transaction");
+        try (TraceContext.Scope scope = TraceContext.use(span)) {
+            span.tag(Tracer.FUNCTION, name);
+            metrics.requestPayload(name, args);
+            CallPolicy policy = policy(name);
+            Transaction transaction = metrics.time(name, FabricMetrics.ENDORSE,
+                    () -> withRetry(name, FabricMetrics.ENDORSE, policy,
+                            () -> withFailover(new HashSet<>(), contract -> endorse(contract, name, args, policy))));
+            span.tag(Tracer.TX_ID, transaction.getTransactionId());
+            return tracer.inSpan("fabric.submit", submit -> {
+                submit.tag(Tracer.TX_ID, transaction.getTransactionId());
+                return metrics.time(name, FabricMetrics.SUBMIT,
+                        () -> transaction.submitAsync(CallPolicy.deadline(policy.submitTimeoutMs)));
+            });
+        } catch (Exception e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Espera el estado de commit; consultarlo no tiene efectos, asi que se
+     * reintenta igual que una evaluacion.
+     */
+    public Status commitStatus(String name, Commit commit) throws CommitStatusException {
+        CallPolicy policy = policy(name);
+        return tracer.inSpan("fabric.commitStatus", span -> {
+            span.tag(Tracer.FUNCTION, name).tag(Tracer.TX_ID, commit.getTransactionId());
+            Status status = withRetry(name, FabricMetrics.COMMIT, policy,
+                    () -> metrics.commitStatus(name, commit, CallPolicy.deadline(policy.commitStatusTimeoutMs)));
+            span.tag("fabric.status", status.getCode().name()).tag("fabric.block", status.getBlockNumber());
+            return status;
+        });
+    }
+
+    public Contract getContract() {
+        return lease(selectPeer(Set.of()).nextConnection());
+    }
+
+    public Network getNetwork() {
+        return selectPeer(Set.of()).nextConnection().getNetwork();
+    }
+
+    public int getPoolSize() {
+        int size = 0;
+        for (FabricPeer peer : peers) {
+            size += peer.getConnections().size();
+        }
+        return size;
+    }
+
+    public FabricPoolStats getStats() {
+        long now = System.currentTimeMillis();
+        List<FabricPoolStats.PeerStats> peerStats = new ArrayList<>();
+        for (FabricPeer peer : peers) {
+            List<FabricPoolStats.ConnectionStats> connectionStats = new ArrayList<>();
+            for (PooledConnection connection : peer.getConnections()) {
+                connectionStats.add(new FabricPoolStats.ConnectionStats(connection.getId(),
+                        connection.getState().name(), connection.getLeases()));
+            }
+            peerStats.add(new FabricPoolStats.PeerStats(peer.getEndpoint(), peer.isHealthy(now),
+                    peer.getOutstanding(), peer.getRequests(), peer.getFailures(), connectionStats));
+        }
+        return new FabricPoolStats(getPoolSize(), config.getLoadBalancing().getStrategy().name(), peerStats,
+                new ArrayList<>(identities.asMap().keySet()));
+    }
+
+    @PreDestroy
+    public void close() {
+        hedgeTimer.shutdownNow();
+        hedgeExecutor.shutdownNow();
+        identities.invalidateAll();
+        identities.cleanUp();
+        for (FabricPeer peer : peers) {
+            try {
+                peer.close(config.getPool().getShutdownTimeoutSeconds());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrumpido cerrando las conexiones contra {}", peer.getEndpoint());
+            } catch (RuntimeException e) {
+                logger.warn("Error cerrando las conexiones contra {}", peer.getEndpoint(), e);
+            }
+        }
+        peers.clear();
+    }
+
+    /**
+     * Contract de la conexion con la identidad del hilo actual. Una identidad
+     * nueva abre sus Gateways aca; despues es una busqueda en el cache.
+     */
+    private Contract lease(PooledConnection connection) {
+        String identity = IdentityContext.current();
+        if (identity == null) {
+            return connection.lease();
+        }
+        return connection.lease(identities.get(identity, this::openIdentity));
+    }
+
+    private IdentityGateways openIdentity(String name) {
+        FabricConfigProperties.Identity identity = config.getIdentities().get(name);
+        if (identity == null) {
+            throw new IllegalArgumentException("Identidad de Fabric no configurada: " + name);
+        }
+        List<PooledConnection> connections = new ArrayList<>();
+        for (FabricPeer peer : peers) {
+            connections.addAll(peer.getConnections());
+        }
+        try {
+            IdentityGateways gateways = connector.connect(name, identity, connections);
+            metrics.identity("opened");
+            logger.info("Identidad {}: {} Gateways sobre las conexiones del pool", name, connections.size());
+            return gateways;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la identidad " + name, e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo leer la identidad " + name, e);
+        }
+    }
+
+    /**
+     * Cada intento de endorsement arma una propuesta nueva, con su propio transactionId.
+     */
+    private Transaction endorse(Contract contract, String name, String[] args, CallPolicy policy)
+            throws EndorseException {
+        Proposal proposal = tracer.inSpan("fabric.proposal", span -> {
+            Proposal built = contract.newProposal(name).addArguments(args).build();
+            span.tag(Tracer.TX_ID, built.getTransactionId());
+            return built;
+        });
+        return tracer.inSpan("fabric.endorse", span -> {
+            span.tag(Tracer.TX_ID, proposal.getTransactionId());
+            return proposal.endorse(CallPolicy.deadline(policy.endorseTimeoutMs));
+        });
+    }
+
+    private CallPolicy policy(String name) {
+        return policies.computeIfAbsent(name, function -> CallPolicy.resolve(config.getPolicies(), function));
+    }
+
+    private byte[] evaluate(String name, String[] args, CallPolicy policy) throws GatewayException {
+        if (!policy.hedge || peers.size() < 2) {
+            return evaluateOnce(name, args, policy, new HashSet<>());
+        }
+        long p95 = latencies.computeIfAbsent(name, function -> new LatencyWindow()).p95();
+        if (p95 < 0) {
+            // sin muestras suficientes todavia no se sabe cuando una respuesta es lenta
+            return evaluateOnce(name, args, policy, new HashSet<>());
+        }
+        return evaluateHedged(name, args, policy,
+                Math.max(TimeUnit.MILLISECONDS.toNanos(policy.hedgeMinDelayMs), p95));
+    }
+
+    private byte[] evaluateOnce(String name, String[] args, CallPolicy policy, Set<FabricPeer> tried)
+            throws GatewayException {
+        long start = System.nanoTime();
+        byte[] result = withFailover(tried, contract -> {
+            Proposal proposal = contract.newProposal(name).addArguments(args).build();
+            Span span = TraceContext.current();
+            if (span != null) {
+                span.tag(Tracer.TX_ID, proposal.getTransactionId());
+            }
+            return proposal.evaluate(CallPolicy.deadline(policy.evaluateTimeoutMs));
+        });
+        latencies.computeIfAbsent(name, function -> new LatencyWindow()).record(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * La consulta corre en el hilo del request; si no respondio despues de
+     * delayNanos se manda otra igual a otro peer desde el pool de respaldo y
+     * se devuelve la primera respuesta exitosa. Si gana la de respaldo se
+     * cancela la original (contexto gRPC). Un error rapido de la primera no
+     * dispara la segunda, si fallan las dos se devuelve el error de la
+     * primera, y con el pool lleno no hay respaldo.
+     */
+    private byte[] evaluateHedged(String name, String[] args, CallPolicy policy, long delayNanos)
+            throws GatewayException {
+        Set<FabricPeer> tried = ConcurrentHashMap.newKeySet();
+        AtomicBoolean answered = new AtomicBoolean();
+        CompletableFuture<byte[]> backup = new CompletableFuture<>();
+        Context.CancellableContext primary = Context.current().withCancellation();
+        Span span = TraceContext.current();
+        ScheduledFuture<?> timer = hedgeTimer.schedule(
+                () -> sendBackup(name, args, policy, tried, span, answered, backup, primary),
+                delayNanos, TimeUnit.NANOSECONDS);
+        Context previous = primary.attach();
+        try {
+            byte[] result = evaluateOnce(name, args, policy, tried);
+            answered.set(true);
+            timer.cancel(false);
+            return result;
+        } catch (GatewayException | RuntimeException e) {
+            if (timer.cancel(false)) {
+                // fallo antes de que hiciera falta el respaldo
+                throw e;
+            }
+            // el respaldo ya se mando (o se descarto): si gano, la original se cancelo por eso
+            try {
+                return await(backup);
+            } catch (GatewayException | CancellationException backupError) {
+                throw e;
+            }
+        } finally {
+            primary.detach(previous);
+            primary.cancel(null);
+        }
+    }
+
+    private void sendBackup(String name, String[] args, CallPolicy policy, Set<FabricPeer> tried, Span span,
+            AtomicBoolean answered, CompletableFuture<byte[]> backup, Context.CancellableContext primary) {
+        if (answered.get() || tried.size() >= peers.size()) {
+            // ya respondio, o la primera ya paso por todos los peers
+            backup.cancel(false);
+            return;
+        }
+        try {
+            hedgeExecutor.execute(() -> {
+                try (TraceContext.Scope trace = TraceContext.use(span)) {
+                    byte[] result = evaluateOnce(name, args, policy, tried);
+                    if (answered.compareAndSet(false, true)) {
+                        metrics.hedge(name, "won");
+                        backup.complete(result);
+                        primary.cancel(null);
+                    } else {
+                        metrics.hedge(name, "lost");
+                        backup.complete(result);
+                    }
+                } catch (Exception | Error e) {
+                    metrics.hedge(name, "lost");
+                    backup.completeExceptionally(e);
+                }
+            });
+            metrics.hedge(name, "sent");
+        } catch (RejectedExecutionException e) {
+            metrics.hedge(name, "rejected");
+            backup.cancel(false);
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> future) throws GatewayException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cancelled(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static GatewayException cancelled(InterruptedException e) {
+        return new GatewayException(io.grpc.Status.CANCELLED
+                .withDescription("Interrumpido esperando una evaluacion")
+                .withCause(e)
+                .asRuntimeException());
+    }
+
+    private static GatewayException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof GatewayException) {
+            return (GatewayException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw (RuntimeException) cause;
+    }
+
+    /**
+     * Repite la llamada ante errores transitorios hasta maxAttempts, con
+     * backoff exponencial y jitter. Cualquier otro error sale en el acto.
+     */
+    private <T, E extends Exception> T withRetry(String name, String phase, CallPolicy policy,
+            FabricMetrics.Call<T, E> call) throws E {
+        int attempt = 1;
+        while (true) {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                if (attempt >= policy.maxAttempts || !isPeerFailure(e)) {
+                    throw e;
+                }
+                long backoff = policy.backoff(attempt);
+                logger.debug("{} ({}) fallo con {}, reintento {} en {} ms", name, phase,
+                        ((GatewayException) e).getStatus().getCode(), attempt, backoff);
+                metrics.retry(name, phase);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                attempt++;
+            }
+        }
+    }
+
+    private <T, E extends Exception> T withFailover(Set<FabricPeer> tried, PeerCall<T, E> call) throws E {
+        while (true) {
+            FabricPeer peer = selectPeer(tried);
+            tried.add(peer);
+            peer.begin();
+            try {
+                T result = call.call(lease(peer.nextConnection()));
+                peer.markHealthy();
+                return result;
+            } catch (Exception e) {
+                if (!isPeerFailure(e) || tried.size() >= peers.size()) {
+                    throw e;
+                }
+                peer.markUnhealthy(System.currentTimeMillis() + config.getLoadBalancing().getUnhealthyCooldownMs());
+                logger.warn("El peer {} no respondio ({}), reintentando en otro peer",
+                        peer.getEndpoint(), ((GatewayException) e).getStatus().getCode());
+            } finally {
+                peer.end();
+            }
+        }
+    }
+
+    private static boolean isPeerFailure(Exception e) {
+        if (!(e instanceof GatewayException)) {
+            return false;
+        }
+        io.grpc.Status.Code code = ((GatewayException) e).getStatus().getCode();
+        return code == io.grpc.Status.Code.UNAVAILABLE || code == io.grpc.Status.Code.DEADLINE_EXCEEDED;
+    }
+
+    private FabricPeer selectPeer(Set<FabricPeer> excluded) {
+        if (peers.isEmpty()) {
+            throw new IllegalStateException("El pool de conexiones de Fabric no esta inicializado");
+        }
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(next.getAndIncrement(), peers.size());
+        FabricPeer selected = selectPeer(excluded, start, now, true);
+        if (selected == null) {
+            // todos los peers restantes estan marcados como caidos: se prueba igual
+            selected = selectPeer(excluded, start, now, false);
+        }
+        if (selected == null) {
+            // una consulta de respaldo puede llegar cuando la primera ya paso por todos
+            selected = selectPeer(Set.of(), start, now, false);
+        }
+        return selected;
+    }
+
+    private FabricPeer selectPeer(Set<FabricPeer> excluded, int start, long now, boolean healthyOnly) {
+        boolean leastOutstanding = config.getLoadBalancing().getStrategy() == LoadBalancingStrategy.LEAST_OUTSTANDING;
+        FabricPeer best = null;
+        for (int i = 0; i < peers.size(); i++) {
+            FabricPeer peer = peers.get((start + i) % peers.size());
+            if (excluded.contains(peer) || (healthyOnly && !peer.isHealthy(now))) {
+                continue;
+            }
+            if (!leastOutstanding) {
+                return peer;
+            }
+            if (best == null || peer.getOutstanding() < best.getOutstanding()) {
+                best = peer;
+            }
+        }
+        return best;
+    }
+
+    private List<FabricConfigProperties.Peer> configuredPeers() {
+        if (config.getPeers() != null && !config.getPeers().isEmpty()) {
+            return config.getPeers();
+        }
+        FabricConfigProperties.Peer peer = new FabricConfigProperties.Peer();
+        peer.setEndpoint(config.getPeerEndpoint());
+        peer.setOverrideAuth(config.getOverrideAuth());
+        return List.of(peer);
+    }
+}
@@ -0,0 +1,23 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.List;
+
+/**
+ * Abre cada conexion del pool. Por defecto contra los peers reales por gRPC;
+ * con el perfil inmemory contra un ledger en memoria.
+ */
+interface FabricConnector {
+
+    PooledConnection connect(int id, FabricConfigProperties.Peer peer) throws IOException;
+
+    /**
+     * Gateways de otra identidad sobre los canales ya abiertos de esas
+     * conexiones, sin abrir conexiones nuevas.
+     */
+    IdentityGateways connect(String name, FabricConfigProperties.Identity identity, List<PooledConnection> connections)
+            throws IOException, GeneralSecurityException;
+}
@@ -0,0 +1,248 @@
+package com.code.hyperledger.fabric;
+
+import io.grpc.CallOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hyperledger.fabric.client.Commit;
+import org.hyperledger.fabric.client.CommitStatusException;
+import org.hyperledger.fabric.client.GatewayException;
+import org.hyperledger.fabric.client.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Metricas de cada llamada a Fabric, por funcion del chaincode y por fase:
+ * evaluate, endorse, submit (entrega al orderer) y commit (espera del estado).
+ * <ul>
+ * <li>fabric.client.latency: timer con tags function, phase y outcome</li>
+ * <li>fabric.client.errors: errores por codigo gRPC o TxValidationCode</li>
+ * <li>fabric.client.payload: bytes de argumentos y respuestas</li>
+ * <li>fabric.client.coalescing: consultas que fueron al peer (executed) o que
+ * reusaron una identica en curso (shared)</li>
+ * <li>fabric.client.batch.size: IDs por lote de lecturas agrupadas</li>
+ * <li>fabric.client.retries: reintentos por errores transitorios, por fase</li>
+ * <li>fabric.client.hedges: consultas de respaldo enviadas (sent), si
+ * respondio primero la de respaldo (won) o la original (lost), y las que no
+ * se mandaron por el pool de respaldo lleno (rejected)</li>
+ * <li>fabric.client.conflicts: transiciones invalidadas por MVCC_READ_CONFLICT
+ * que se reenviaron (resubmitted), que se confirmaron despues de algun
+ * conflicto (resolved) o que agotaron los intentos (exhausted)</li>
+ * <li>fabric.client.key.wait: espera por otra transaccion en curso sobre la
+ * misma clave en esta instancia</li>
+ * <li>fabric.client.prefetch: paginas siguientes pedidas en segundo plano
+ * (fetched), servidas desde el cache (hit), descartadas por cola llena
+ * (dropped) o con error (failed)</li>
+ * <li>fabric.client.signing: espera en la cola del pool de firma (queue) y
+ * firma en el pool (sign) o en el hilo del request con la cola llena (inline)</li>
+ * <li>fabric.client.identities: Gateways de identidades adicionales abiertos
+ * (opened), cerrados por falta de uso o por exceder el maximo (evicted) o al
+ * apagar (closed)</li>
+ * <li>fabric.events.handler.latency: procesamiento de eventos del chaincode
+ * por handler y outcome</li>
+ * <li>fabric.events.inflight: eventos recibidos que todavia no procesaron
+ * todos sus handlers</li>
+ * </ul>
+ */
+@Component
+public class FabricMetrics {
+
+    public static final String EVALUATE = "evaluate";
+    public static final String ENDORSE = "endorse";
+    public static final String SUBMIT = "submit";
+    public static final String COMMIT = "commit";
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private final MeterRegistry registry;
+
+    public FabricMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T, E extends Exception> T time(String function, String phase, Call<T, E> call) throws E {
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            record(function, phase, "success", start);
+            return result;
+        } catch (Exception e) {
+            record(function, phase, "error", start);
+            error(function, phase, statusOf(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Espera el estado de commit midiendo la fase; una transaccion invalidada
+     * (MVCC_READ_CONFLICT, ENDORSEMENT_POLICY_FAILURE, ...) cuenta como error.
+     */
+    public Status commitStatus(String function, Commit commit, UnaryOperator<CallOptions> options)
+            throws CommitStatusException {
+        long start = System.nanoTime();
+        Status status;
+        try {
+            status = commit.getStatus(options);
+        } catch (CommitStatusException e) {
+            record(function, COMMIT, "error", start);
+            error(function, COMMIT, statusOf(e));
+            throw e;
+        }
+        if (status.isSuccessful()) {
+            record(function, COMMIT, "success", start);
+        } else {
+            record(function, COMMIT, "invalid", start);
+            error(function, COMMIT, status.getCode().name());
+        }
+        return status;
+    }
+
+    public void requestPayload(String function, String... args) {
+        long size = 0;
+        for (String arg : args) {
+            size += arg == null ? 0 : arg.length();
+        }
+        payload(function, "request", size);
+    }
+
+    public void responsePayload(String function, byte[] result) {
+        payload(function, "response", result == null ? 0 : result.length);
+    }
+
+    public void coalescing(String function, boolean shared) {
+        Counter.builder("fabric.client.coalescing")
+                .description("Consultas enviadas al peer o resueltas con una identica en curso")
+                .tag("function", function)
+                .tag("result", shared ? "shared" : "executed")
+                .register(registry)
+                .increment();
+    }
+
+    public void batchSize(String function, int size) {
+        DistributionSummary.builder("fabric.client.batch.size")
+                .description("IDs por lote de lecturas agrupadas en una sola evaluacion")
+                .tag("function", function)
+                .register(registry)
+                .record(size);
+    }
+
+    public void retry(String function, String phase) {
+        Counter.builder("fabric.client.retries")
+                .description("Reintentos por errores transitorios (UNAVAILABLE, DEADLINE_EXCEEDED)")
+                .tag("function", function)
+                .tag("phase", phase)
+                .register(registry)
+                .increment();
+    }
+
+    public void hedge(String function, String result) {
+        Counter.builder("fabric.client.hedges")
+                .description("Consultas de respaldo enviadas a otro peer y cual respondio primero")
+                .tag("function", function)
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    public void conflict(String function, String result) {
+        Counter.builder("fabric.client.conflicts")
+                .description("Transiciones de estado invalidadas por MVCC_READ_CONFLICT y como terminaron")
+                .tag("function", function)
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    public void keyWait(String function, long nanos) {
+        Timer.builder("fabric.client.key.wait")
+                .description("Espera por otra transaccion de esta instancia sobre la misma clave")
+                .tag("function", function)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void prefetch(String function, String result) {
+        Counter.builder("fabric.client.prefetch")
+                .description("Paginas siguientes leidas por adelantado y su aprovechamiento")
+                .tag("function", function)
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    public void signing(String stage, long nanos) {
+        Timer.builder("fabric.client.signing")
+                .description("Firma de propuestas y transacciones")
+                .tag("stage", stage)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void identity(String result) {
+        Counter.builder("fabric.client.identities")
+                .description("Gateways de identidades adicionales abiertos y cerrados")
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    public void eventHandled(String handler, boolean success, long start) {
+        Timer.builder("fabric.events.handler.latency")
+                .description("Procesamiento de eventos del chaincode por handler")
+                .tag("handler", handler)
+                .tag("outcome", success ? "success" : "error")
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public void eventsInFlight(Supplier<Number> inFlight) {
+        Gauge.builder("fabric.events.inflight", inFlight)
+                .description("Eventos del chaincode recibidos y todavia no procesados por todos sus handlers")
+                .register(registry);
+    }
+
+    private void record(String function, String phase, String outcome, long start) {
+        Timer.builder("fabric.client.latency")
+                .description("Latencia de las llamadas a Fabric por funcion y fase")
+                .tag("function", function)
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void error(String function, String phase, String status) {
+        Counter.builder("fabric.client.errors")
+                .description("Errores de las llamadas a Fabric por codigo gRPC o de validacion")
+                .tag("function", function)
+                .tag("phase", phase)
+                .tag("status", status)
+                .register(registry)
+                .increment();
+    }
+
+    private void payload(String function, String direction, long size) {
+        DistributionSummary.builder("fabric.client.payload")
+                .description("Tamano de argumentos y respuestas de las llamadas a Fabric")
+                .baseUnit("bytes")
+                .tag("function", function)
+                .tag("direction", direction)
+                .register(registry)
+                .record(size);
+    }
+
+    private static String statusOf(Exception e) {
+        if (e instanceof GatewayException) {
+            return ((GatewayException) e).getStatus().getCode().name();
+        }
+        return e.getClass().getSimpleName();
+    }
+}
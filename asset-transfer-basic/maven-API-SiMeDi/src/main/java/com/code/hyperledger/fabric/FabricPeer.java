@@ -0,0 +1,82 @@
+package com.code.hyperledger.fabric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Un peer configurado con sus conexiones del pool y su estado de salud.
+ */
+class FabricPeer {
+
+    private final String endpoint;
+    private final List<PooledConnection> connections = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile long unhealthyUntil;
+
+    FabricPeer(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    void addConnection(PooledConnection connection) {
+        connections.add(connection);
+    }
+
+    List<PooledConnection> getConnections() {
+        return Collections.unmodifiableList(connections);
+    }
+
+    PooledConnection nextConnection() {
+        return connections.get(Math.floorMod(next.getAndIncrement(), connections.size()));
+    }
+
+    boolean isHealthy(long now) {
+        return now >= unhealthyUntil;
+    }
+
+    void markUnhealthy(long until) {
+        unhealthyUntil = until;
+        failures.incrementAndGet();
+    }
+
+    void markHealthy() {
+        unhealthyUntil = 0;
+    }
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    void begin() {
+        requests.incrementAndGet();
+        outstanding.incrementAndGet();
+    }
+
+    void end() {
+        outstanding.decrementAndGet();
+    }
+
+    long getRequests() {
+        return requests.get();
+    }
+
+    long getFailures() {
+        return failures.get();
+    }
+
+    void close(long timeoutSeconds) throws InterruptedException {
+        for (PooledConnection connection : connections) {
+            connection.close(timeoutSeconds);
+        }
+        connections.clear();
+    }
+}
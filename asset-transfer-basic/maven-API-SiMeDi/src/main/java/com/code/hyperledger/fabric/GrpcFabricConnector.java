@@ -0,0 +1,145 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import io.grpc.Grpc;
+import io.grpc.ManagedChannel;
+import io.grpc.TlsChannelCredentials;
+import org.hyperledger.fabric.client.Contract;
+import org.hyperledger.fabric.client.Gateway;
+import org.hyperledger.fabric.client.identity.Identities;
+import org.hyperledger.fabric.client.identity.Identity;
+import org.hyperledger.fabric.client.identity.Signer;
+import org.hyperledger.fabric.client.identity.Signers;
+import org.hyperledger.fabric.client.identity.X509Identity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conexiones reales: un canal gRPC con TLS y un Gateway por elemento del pool.
+ * Las identidades adicionales abren sus Gateways sobre esos mismos canales.
+ */
+@Component
+@Profile("!inmemory")
+class GrpcFabricConnector implements FabricConnector {
+
+    private final FabricConfigProperties config;
+    private final FabricMetrics metrics;
+    private Identity identity;
+    private Signer signer;
+    private SigningPool signingPool;
+
+    GrpcFabricConnector(FabricConfigProperties config, FabricMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    void init() throws IOException, CertificateException, GeneralSecurityException {
+        FabricConfigProperties.Signing signing = config.getSigning();
+        if (signing.isPooled()) {
+            signingPool = new SigningPool(signing.getThreads(), signing.getQueueCapacity(), metrics);
+        }
+        // la identidad y la clave se leen una sola vez y se comparten entre todos los Gateways
+        identity = newIdentity(config.getMspId(), config.getCertPath());
+        signer = newSigner(config.getKeyPath());
+    }
+
+    @PreDestroy
+    void close() {
+        if (signingPool != null) {
+            signingPool.close();
+        }
+    }
+
+    @Override
+    public PooledConnection connect(int id, FabricConfigProperties.Peer peer) throws IOException {
+        ManagedChannel channel = newGrpcConnection(peer);
+        return new PooledConnection(id, peer.getEndpoint(), channel, newGateway(identity, signer, channel),
+                config.getChannelName(), config.getChaincodeName());
+    }
+
+    @Override
+    public IdentityGateways connect(String name, FabricConfigProperties.Identity identityConfig,
+            List<PooledConnection> connections) throws IOException, GeneralSecurityException {
+        String mspId = identityConfig.getMspId() != null ? identityConfig.getMspId() : config.getMspId();
+        Identity other = newIdentity(mspId, identityConfig.getCertPath());
+        Signer otherSigner = newSigner(identityConfig.getKeyPath());
+        Contract[] contracts = new Contract[connections.size()];
+        List<Gateway> gateways = new ArrayList<>(connections.size());
+        for (PooledConnection connection : connections) {
+            // un Gateway es solo estado local: el canal es el de la conexion del pool
+            Gateway gateway = newGateway(other, otherSigner, connection.getChannel());
+            gateways.add(gateway);
+            contracts[connection.getId()] = gateway.getNetwork(config.getChannelName())
+                    .getContract(config.getChaincodeName());
+        }
+        return new IdentityGateways(name, contracts, gateways);
+    }
+
+    private Gateway newGateway(Identity gatewayIdentity, Signer gatewaySigner, ManagedChannel channel) {
+        // deadlines por defecto; cada llamada los reemplaza con los de la politica de su funcion
+        FabricConfigProperties.Policy defaults = config.getPolicies().getDefaults();
+        return Gateway.newInstance()
+                .identity(gatewayIdentity)
+                .signer(gatewaySigner)
+                .connection(channel)
+                .evaluateOptions(CallPolicy.deadline(defaults.getEvaluateTimeoutMs()))
+                .endorseOptions(CallPolicy.deadline(defaults.getEndorseTimeoutMs()))
+                .submitOptions(CallPolicy.deadline(defaults.getSubmitTimeoutMs()))
+                .commitStatusOptions(CallPolicy.deadline(defaults.getCommitStatusTimeoutMs()))
+                .connect();
+    }
+
+    private Path getPath(String relativePath) {
+        return Paths.get(config.getCryptoPath()).resolve(relativePath);
+    }
+
+    private Path getFirstFilePath(Path dirPath) throws IOException {
+        try (var keyFiles = Files.list(dirPath)) {
+            return keyFiles.findFirst().orElseThrow();
+        }
+    }
+
+    private ManagedChannel newGrpcConnection(FabricConfigProperties.Peer peer) throws IOException {
+        String tlsCert = peer.getTlsCertPath() != null ? peer.getTlsCertPath() : config.getTlsCertPath();
+        var credentials = TlsChannelCredentials.newBuilder()
+                .trustManager(getPath(tlsCert).toFile())
+                .build();
+
+        return Grpc.newChannelBuilder(peer.getEndpoint(), credentials)
+                .overrideAuthority(peer.getOverrideAuth())
+                .build();
+    }
+
+    private Identity newIdentity(String mspId, String certDir) throws IOException, CertificateException {
+        Path certPath = getFirstFilePath(getPath(certDir));
+        try (Reader certReader = Files.newBufferedReader(certPath)) {
+            var certificate = Identities.readX509Certificate(certReader);
+            return new X509Identity(mspId, certificate);
+        }
+    }
+
+    private Signer newSigner(String keyDir) throws IOException, GeneralSecurityException {
+        Path keyPath = getFirstFilePath(getPath(keyDir));
+        Signer keySigner;
+        try (Reader keyReader = Files.newBufferedReader(keyPath)) {
+            var privateKey = Identities.readPrivateKey(keyReader);
+            keySigner = config.getSigning().isCachedSignature()
+                    ? EcdsaSigner.of(privateKey)
+                    : Signers.newPrivateKeySigner(privateKey);
+        }
+        return signingPool != null ? signingPool.wrap(keySigner) : keySigner;
+    }
+}
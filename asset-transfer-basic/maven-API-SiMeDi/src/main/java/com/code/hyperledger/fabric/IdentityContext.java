@@ -0,0 +1,70 @@
+package com.code.hyperledger.fabric;
+
+import java.util.function.Supplier;
+
+/**
+ * Identidad (de fabric.identities) con la que se firman las transacciones que
+ * envia el hilo actual; null es la identidad por defecto. La fija el header
+ * X-Fabric-Identity de cada request y los pools que ejecutan trabajo de un
+ * request (bulkheads, carga masiva) la pasan a sus hilos.
+ * Las evaluaciones se firman siempre con la identidad por defecto: el
+ * chaincode no filtra las lecturas por quien pregunta, y sus resultados se
+ * comparten entre requests de cualquier identidad (consultas agrupadas,
+ * lotes por ID, caches de registros, ETags y paginas).
+ */
+public final class IdentityContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Devuelve la identidad anterior al cerrarse.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final String previous;
+
+        private Scope(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            set(previous);
+        }
+    }
+
+    private IdentityContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static Scope use(String identity) {
+        Scope scope = new Scope(CURRENT.get());
+        set(identity);
+        return scope;
+    }
+
+    /**
+     * El trabajo corre con la identidad del hilo que lo crea, en el hilo que sea.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        String identity = CURRENT.get();
+        if (identity == null) {
+            return work;
+        }
+        return () -> {
+            try (Scope scope = use(identity)) {
+                return work.get();
+            }
+        };
+    }
+
+    private static void set(String identity) {
+        if (identity == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(identity);
+        }
+    }
+}
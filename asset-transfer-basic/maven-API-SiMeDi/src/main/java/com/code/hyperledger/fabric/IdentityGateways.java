@@ -0,0 +1,40 @@
+package com.code.hyperledger.fabric;
+
+import org.hyperledger.fabric.client.Contract;
+import org.hyperledger.fabric.client.Gateway;
+
+import java.util.List;
+
+/**
+ * Contracts de una identidad, uno por conexion del pool y sobre el mismo
+ * canal gRPC: cerrarlos cierra los Gateways, no los canales.
+ */
+final class IdentityGateways {
+
+    private final String name;
+    private final Contract[] contracts;
+    private final List<Gateway> gateways;
+
+    IdentityGateways(String name, Contract[] contracts, List<Gateway> gateways) {
+        this.name = name;
+        this.contracts = contracts;
+        this.gateways = gateways;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Contract de la conexion con ese id.
+     */
+    Contract contract(int connectionId) {
+        return contracts[connectionId];
+    }
+
+    void close() {
+        for (Gateway gateway : gateways) {
+            gateway.close();
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import io.grpc.CallOptions;
+import io.grpc.Deadline;
+import org.hyperledger.fabric.client.ChaincodeEvent;
+import org.hyperledger.fabric.client.ChaincodeEventsRequest;
+import org.hyperledger.fabric.client.Checkpoint;
+import org.hyperledger.fabric.client.CloseableIterator;
+import org.hyperledger.fabric.client.CommitException;
+import org.hyperledger.fabric.client.Contract;
+import org.hyperledger.fabric.client.EndorseException;
+import org.hyperledger.fabric.client.GatewayException;
+import org.hyperledger.fabric.client.Network;
+import org.hyperledger.fabric.client.Proposal;
+import org.hyperledger.fabric.client.Status;
+import org.hyperledger.fabric.client.SubmittedTransaction;
+import org.hyperledger.fabric.client.Transaction;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reemplaza a los peers por un ledger en memoria (perfil inmemory) para hacer
+ * pruebas de carga de la API sin una red Fabric. Todas las conexiones del
+ * pool comparten el mismo ledger; cada fase puede tener una latencia simulada
+ * y fallar con la probabilidad configurada en fabric.inMemory. Evaluate y
+ * endorse respetan el deadline de las opciones de la llamada.
+ *
+ * Contract, Network y el resto de la API del Gateway se implementan con
+ * proxies dinamicos: solo se atienden los metodos que usa la aplicacion.
+ */
+@Component
+@Profile("inmemory")
+class InMemoryFabricConnector implements FabricConnector {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryFabricConnector.class);
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Throwable;
+    }
+
+    private final FabricConfigProperties config;
+    private final FabricConfigProperties.InMemory settings;
+    private final InMemoryLedger ledger = new InMemoryLedger();
+
+    InMemoryFabricConnector(FabricConfigProperties config) {
+        this.config = config;
+        this.settings = config.getInMemory();
+        logger.warn("Perfil inmemory: las transacciones se ejecutan contra un ledger en memoria, no contra Fabric");
+    }
+
+    @Override
+    public PooledConnection connect(int id, FabricConfigProperties.Peer peer) {
+        return new PooledConnection(id, peer.getEndpoint() != null ? peer.getEndpoint() : "inmemory",
+                newNetwork(), config.getChaincodeName());
+    }
+
+    /**
+     * El ledger en memoria no valida firmas: otra identidad usa los mismos
+     * Contracts, asi se mide el costo de elegirla por request.
+     */
+    @Override
+    public IdentityGateways connect(String name, FabricConfigProperties.Identity identity,
+            List<PooledConnection> connections) {
+        Contract[] contracts = new Contract[connections.size()];
+        for (PooledConnection connection : connections) {
+            contracts[connection.getId()] = connection.getNetwork().getContract(config.getChaincodeName());
+        }
+        return new IdentityGateways(name, contracts, List.of());
+    }
+
+    private Network newNetwork() {
+        Contract contract = newContract();
+        return proxy(Network.class, (method, args) -> {
+            switch (method) {
+                case "getName":
+                    return config.getChannelName();
+                case "getContract":
+                    return contract;
+                case "getChaincodeEvents":
+                    return newEvents(-1, null);
+                case "newChaincodeEventsRequest":
+                    return newEventsRequestBuilder();
+                default:
+                    return unsupported(Network.class, method);
+            }
+        });
+    }
+
+    private Contract newContract() {
+        return proxy(Contract.class, (method, args) -> {
+            switch (method) {
+                case "getChaincodeName":
+                    return config.getChaincodeName();
+                case "getContractName":
+                    return Optional.empty();
+                case "evaluateTransaction":
+                    return evaluate((String) args[0], arguments(args, 1), Long.MAX_VALUE);
+                case "submitTransaction":
+                    return submit(endorse(newTransactionId(), (String) args[0], arguments(args, 1), Long.MAX_VALUE)
+                            .submitAsync());
+                case "newProposal":
+                    return newProposalBuilder((String) args[0]);
+                default:
+                    return unsupported(Contract.class, method);
+            }
+        });
+    }
+
+    private Proposal.Builder newProposalBuilder(String function) {
+        List<String> arguments = new ArrayList<>();
+        Proposal.Builder[] builder = new Proposal.Builder[1];
+        builder[0] = proxy(Proposal.Builder.class, (method, args) -> {
+            switch (method) {
+                case "addArguments":
+                    arguments.addAll(arguments(args, 0));
+                    return builder[0];
+                case "build":
+                    return newProposal(function, List.copyOf(arguments));
+                default:
+                    // datos transitorios y organizaciones de endorsement no aplican en memoria
+                    return builder[0];
+            }
+        });
+        return builder[0];
+    }
+
+    private Proposal newProposal(String function, List<String> arguments) {
+        String transactionId = newTransactionId();
+        return proxy(Proposal.class, (method, args) -> {
+            switch (method) {
+                case "getTransactionId":
+                    return transactionId;
+                case "evaluate":
+                    return evaluate(function, arguments, timeoutMs(args));
+                case "endorse":
+                    return endorse(transactionId, function, arguments, timeoutMs(args));
+                default:
+                    return unsupported(Proposal.class, method);
+            }
+        });
+    }
+
+    private byte[] evaluate(String function, List<String> arguments, long timeoutMs) throws GatewayException {
+        if (!delay(settings.getEvaluateLatencyMs(), timeoutMs)) {
+            throw new GatewayException(deadlineExceeded());
+        }
+        if (inject(settings.getEvaluateErrorRate())) {
+            throw new GatewayException(injected("evaluateErrorRate"));
+        }
+        try {
+            return ledger.simulate(function, arguments).getResult();
+        } catch (InMemoryLedger.ChaincodeException e) {
+            throw new GatewayException(io.grpc.Status.UNKNOWN
+                    .withDescription("evaluate call to endorser returned error: " + e.getMessage())
+                    .asRuntimeException());
+        }
+    }
+
+    private Transaction endorse(String transactionId, String function, List<String> arguments, long timeoutMs)
+            throws EndorseException {
+        if (!delay(settings.getEndorseLatencyMs(), timeoutMs)) {
+            throw new EndorseException(transactionId, deadlineExceeded());
+        }
+        if (inject(settings.getEndorseErrorRate())) {
+            throw new EndorseException(transactionId, injected("endorseErrorRate"));
+        }
+        InMemoryLedger.Simulation simulation;
+        try {
+            simulation = ledger.simulate(function, arguments);
+        } catch (InMemoryLedger.ChaincodeException e) {
+            throw new EndorseException(transactionId, io.grpc.Status.ABORTED
+                    .withDescription("failed to endorse transaction: " + e.getMessage())
+                    .asRuntimeException());
+        }
+        return proxy(Transaction.class, (method, args) -> {
+            switch (method) {
+                case "getTransactionId":
+                    return transactionId;
+                case "getResult":
+                    return simulation.getResult();
+                case "submit":
+                    return submit(newSubmitted(transactionId, simulation));
+                case "submitAsync":
+                    return newSubmitted(transactionId, simulation);
+                default:
+                    return unsupported(Transaction.class, method);
+            }
+        });
+    }
+
+    private static byte[] submit(SubmittedTransaction submitted) throws Exception {
+        Status status = submitted.getStatus();
+        if (!status.isSuccessful()) {
+            throw new CommitException(status);
+        }
+        return submitted.getResult();
+    }
+
+    private SubmittedTransaction newSubmitted(String transactionId, InMemoryLedger.Simulation simulation) {
+        delay(settings.getSubmitLatencyMs());
+        InMemoryLedger.Committed committed = ledger.commit(transactionId, simulation,
+                inject(settings.getCommitConflictRate()));
+        long committedAt = System.currentTimeMillis() + latency(settings.getCommitLatencyMs());
+        Status status = proxy(Status.class, (method, args) -> {
+            switch (method) {
+                case "getTransactionId":
+                    return transactionId;
+                case "getBlockNumber":
+                    return committed.blockNumber;
+                case "getCode":
+                    return committed.code;
+                case "isSuccessful":
+                    return committed.code == TxValidationCode.VALID;
+                default:
+                    return unsupported(Status.class, method);
+            }
+        });
+        return proxy(SubmittedTransaction.class, (method, args) -> {
+            switch (method) {
+                case "getTransactionId":
+                    return transactionId;
+                case "getResult":
+                    return simulation.getResult();
+                case "getStatus":
+                    sleep(committedAt - System.currentTimeMillis());
+                    return status;
+                default:
+                    return unsupported(SubmittedTransaction.class, method);
+            }
+        });
+    }
+
+    private ChaincodeEventsRequest.Builder newEventsRequestBuilder() {
+        long[] startBlock = { -1 };
+        String[] afterTransactionId = { null };
+        ChaincodeEventsRequest.Builder[] builder = new ChaincodeEventsRequest.Builder[1];
+        builder[0] = proxy(ChaincodeEventsRequest.Builder.class, (method, args) -> {
+            switch (method) {
+                case "startBlock":
+                    startBlock[0] = (Long) args[0];
+                    return builder[0];
+                case "checkpoint":
+                    Checkpoint checkpoint = (Checkpoint) args[0];
+                    Optional<String> transactionId = checkpoint.getTransactionId();
+                    if (checkpoint.getBlockNumber() > 0 || transactionId.isPresent()) {
+                        startBlock[0] = checkpoint.getBlockNumber();
+                        afterTransactionId[0] = transactionId.orElse(null);
+                    }
+                    return builder[0];
+                case "build":
+                    return proxy(ChaincodeEventsRequest.class, (m, a) -> {
+                        if ("getEvents".equals(m)) {
+                            return newEvents(startBlock[0], afterTransactionId[0]);
+                        }
+                        return unsupported(ChaincodeEventsRequest.class, m);
+                    });
+                default:
+                    return unsupported(ChaincodeEventsRequest.Builder.class, method);
+            }
+        });
+        return builder[0];
+    }
+
+    /**
+     * Iterador bloqueante sobre los eventos del ledger, como el del Gateway.
+     */
+    private CloseableIterator<ChaincodeEvent> newEvents(long startBlock, String afterTransactionId) {
+        Object closed = new Object();
+        BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        Runnable unsubscribe = ledger.subscribe(startBlock, afterTransactionId, queue::add);
+        Object[] next = new Object[1];
+        @SuppressWarnings("unchecked")
+        CloseableIterator<ChaincodeEvent> iterator = proxy(CloseableIterator.class, (method, args) -> {
+            switch (method) {
+                case "hasNext":
+                    if (next[0] == null) {
+                        try {
+                            next[0] = queue.take();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return false;
+                        }
+                    }
+                    return next[0] != closed;
+                case "next":
+                    if (next[0] == null) {
+                        next[0] = queue.poll();
+                    }
+                    if (next[0] == null || next[0] == closed) {
+                        throw new NoSuchElementException();
+                    }
+                    InMemoryLedger.Event event = (InMemoryLedger.Event) next[0];
+                    next[0] = null;
+                    return newChaincodeEvent(event);
+                case "close":
+                    unsubscribe.run();
+                    queue.add(closed);
+                    return null;
+                default:
+                    return unsupported(CloseableIterator.class, method);
+            }
+        });
+        return iterator;
+    }
+
+    private ChaincodeEvent newChaincodeEvent(InMemoryLedger.Event event) {
+        return proxy(ChaincodeEvent.class, (method, args) -> {
+            switch (method) {
+                case "getBlockNumber":
+                    return event.blockNumber;
+                case "getTransactionId":
+                    return event.transactionId;
+                case "getChaincodeName":
+                    return config.getChaincodeName();
+                case "getEventName":
+                    return event.name;
+                case "getPayload":
+                    return event.payload;
+                default:
+                    return unsupported(ChaincodeEvent.class, method);
+            }
+        });
+    }
+
+    private static List<String> arguments(Object[] args, int from) {
+        List<String> result = new ArrayList<>();
+        for (int i = from; args != null && i < args.length; i++) {
+            if (args[i] instanceof String[]) {
+                result.addAll(Arrays.asList((String[]) args[i]));
+            } else if (args[i] instanceof byte[][]) {
+                for (byte[] arg : (byte[][]) args[i]) {
+                    result.add(new String(arg, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String newTransactionId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    private static boolean inject(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static io.grpc.StatusRuntimeException injected(String setting) {
+        return io.grpc.Status.UNAVAILABLE
+                .withDescription("fallo inyectado (fabric.inMemory." + setting + ")")
+                .asRuntimeException();
+    }
+
+    private static io.grpc.StatusRuntimeException deadlineExceeded() {
+        return io.grpc.Status.DEADLINE_EXCEEDED
+                .withDescription("deadline vencido (fabric.inMemory)")
+                .asRuntimeException();
+    }
+
+    /**
+     * Milisegundos hasta el deadline de las opciones de la llamada, si se
+     * pasaron.
+     */
+    @SuppressWarnings("unchecked")
+    private static long timeoutMs(Object[] args) {
+        if (args == null || args.length == 0 || !(args[0] instanceof UnaryOperator)) {
+            return Long.MAX_VALUE;
+        }
+        Deadline deadline = ((UnaryOperator<CallOptions>) args[0]).apply(CallOptions.DEFAULT).getDeadline();
+        return deadline == null ? Long.MAX_VALUE : deadline.timeRemaining(TimeUnit.MILLISECONDS);
+    }
+
+    private void delay(long baseMs) {
+        sleep(latency(baseMs));
+    }
+
+    /**
+     * Espera la latencia simulada, con la demora extra de las llamadas lentas
+     * (slowCallRate). Si no entra en el timeout espera solo hasta ahi y
+     * devuelve false.
+     */
+    private boolean delay(long baseMs, long timeoutMs) {
+        long latency = latency(baseMs) + (inject(settings.getSlowCallRate()) ? settings.getSlowCallLatencyMs() : 0);
+        if (latency > timeoutMs) {
+            sleep(timeoutMs);
+            return false;
+        }
+        sleep(latency);
+        return true;
+    }
+
+    private long latency(long baseMs) {
+        long jitter = settings.getLatencyJitterMs();
+        return baseMs + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Object unsupported(Class<?> type, String method) {
+        throw new UnsupportedOperationException(
+                type.getSimpleName() + "." + method + " no esta disponible con el perfil inmemory");
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        Object instance = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (self, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            if (method.getParameterCount() == 1 && method.getDeclaringClass() == Object.class) {
+                                return self == args[0];
+                            }
+                            break;
+                        case "hashCode":
+                            if (method.getDeclaringClass() == Object.class) {
+                                return System.identityHashCode(self);
+                            }
+                            break;
+                        case "toString":
+                            if (method.getDeclaringClass() == Object.class) {
+                                return "InMemory" + type.getSimpleName();
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    return handler.invoke(method.getName(), args);
+                });
+        return type.cast(instance);
+    }
+}
@@ -0,0 +1,430 @@
+package com.code.hyperledger.fabric;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Las funciones del chaincode (smartcontract.go) sobre un world state en
+ * memoria, para el perfil inmemory. Como en Fabric, la transaccion se simula
+ * en el endorsement (lecturas con su version y escrituras pendientes) y se
+ * aplica en el commit solo si nadie modifico lo que leyo; si no, queda
+ * invalida con MVCC_READ_CONFLICT.
+ */
+class InMemoryLedger {
+
+    private static final String CANCELLED = "cancelled";
+
+    static class ChaincodeException extends Exception {
+        ChaincodeException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Resultado de simular una transaccion: version de cada clave leida,
+     * escrituras, evento y valor de retorno.
+     */
+    static class Simulation {
+        private final Map<String, Long> reads = new HashMap<>();
+        private final Map<String, ObjectNode> writes = new LinkedHashMap<>();
+        private String eventName;
+        private byte[] eventPayload;
+        private byte[] result = new byte[0];
+
+        byte[] getResult() {
+            return result;
+        }
+    }
+
+    static class Event {
+        final long blockNumber;
+        final String transactionId;
+        final String name;
+        final byte[] payload;
+
+        Event(long blockNumber, String transactionId, String name, byte[] payload) {
+            this.blockNumber = blockNumber;
+            this.transactionId = transactionId;
+            this.name = name;
+            this.payload = payload;
+        }
+    }
+
+    static class Committed {
+        final long blockNumber;
+        final TxValidationCode code;
+
+        Committed(long blockNumber, TxValidationCode code) {
+            this.blockNumber = blockNumber;
+            this.code = code;
+        }
+    }
+
+    private static class Entry {
+        final long version;
+        final ObjectNode value;
+
+        Entry(long version, ObjectNode value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentSkipListMap<String, Entry> state = new ConcurrentSkipListMap<>();
+    // bloques, log de eventos y suscriptores protegidos por el lock del ledger
+    private final List<Event> events = new ArrayList<>();
+    private final List<Consumer<Event>> listeners = new ArrayList<>();
+    private long blockNumber;
+
+    /**
+     * Ejecuta la funcion contra el estado actual sin modificarlo.
+     */
+    Simulation simulate(String function, List<String> args) throws ChaincodeException {
+        Simulation sim = new Simulation();
+        switch (function) {
+            case "InitLedger":
+                initLedger(sim);
+                break;
+            case "CreateReceta":
+                create(sim, arg(args, 0), "la receta %s ya existe", "CreateReceta");
+                break;
+            case "CreateVacuna":
+                create(sim, arg(args, 0), "la vacuna %s ya existe", "CreateVacuna");
+                break;
+            case "ReadReceta":
+                sim.result = toBytes(readRequired(sim, arg(args, 0), "la receta %s no existe"));
+                break;
+            case "ReadVacuna":
+                sim.result = toBytes(readRequired(sim, arg(args, 0), "la vacuna %s no existe"));
+                break;
+            case "RecetaExists":
+            case "VacunaExists":
+                sim.result = String.valueOf(read(sim, arg(args, 0)) != null).getBytes(StandardCharsets.UTF_8);
+                break;
+            case "FirmarReceta":
+                firmarReceta(sim, arg(args, 0), arg(args, 1));
+                break;
+            case "EntregarReceta":
+                entregarReceta(sim, arg(args, 0));
+                break;
+            case "DeleteReceta":
+                deleteReceta(sim, arg(args, 0));
+                break;
+            case "TransferirReceta":
+                transferirReceta(sim, arg(args, 0), arg(args, 1));
+                break;
+            case "GetAllRecetas":
+                sim.result = toBytes(list(doc -> !CANCELLED.equals(text(doc, "status"))));
+                break;
+            case "GetMultipleRecetas":
+                sim.result = toBytes(multiple(sim, arg(args, 0), true));
+                break;
+            case "GetMultipleVacunas":
+                sim.result = toBytes(multiple(sim, arg(args, 0), false));
+                break;
+            case "GetRecetasPorDniYEstadosPaginado":
+                sim.result = recetasPorDniYEstados(args);
+                break;
+            case "GetRecetasPaginado":
+                sim.result = page(doc -> !doc.has("vaccinateCode") && !CANCELLED.equals(text(doc, "status")),
+                        pageSize(arg(args, 0)), arg(args, 1));
+                break;
+            case "GetRecetasPaginadoCompleto":
+                sim.result = page(doc -> !doc.has("vaccinateCode"), pageSize(arg(args, 0)), arg(args, 1));
+                break;
+            case "GetVacunasPorDniPaginado":
+                sim.result = vacunasPorDni(args);
+                break;
+            case "GetVacunasPaginado":
+                sim.result = page(doc -> doc.has("vaccinateCode"), pageSize(arg(args, 0)), arg(args, 1));
+                break;
+            case "GetVacunasPorDniYEstado":
+                sim.result = vacunasPorDniYEstado(arg(args, 0), arg(args, 1));
+                break;
+            default:
+                throw new ChaincodeException("Function " + function + " not found in contract SmartContract");
+        }
+        return sim;
+    }
+
+    /**
+     * Valida las versiones leidas y aplica las escrituras en un bloque nuevo.
+     */
+    synchronized Committed commit(String transactionId, Simulation sim, boolean forceConflict) {
+        long block = ++blockNumber;
+        if (forceConflict || !readsAreCurrent(sim)) {
+            return new Committed(block, TxValidationCode.MVCC_READ_CONFLICT);
+        }
+        for (Map.Entry<String, ObjectNode> write : sim.writes.entrySet()) {
+            Entry current = state.get(write.getKey());
+            long version = current != null ? current.version + 1 : 1;
+            state.put(write.getKey(), new Entry(version, write.getValue()));
+        }
+        if (sim.eventName != null) {
+            Event event = new Event(block, transactionId, sim.eventName, sim.eventPayload);
+            events.add(event);
+            for (Consumer<Event> listener : listeners) {
+                listener.accept(event);
+            }
+        }
+        return new Committed(block, TxValidationCode.VALID);
+    }
+
+    /**
+     * Registra el listener y le reenvia antes los eventos ya emitidos desde
+     * startBlock (salteando hasta afterTransactionId inclusive, si se indica).
+     * Con startBlock negativo solo recibe los eventos nuevos.
+     */
+    synchronized Runnable subscribe(long startBlock, String afterTransactionId, Consumer<Event> listener) {
+        if (startBlock >= 0) {
+            boolean skipping = afterTransactionId != null;
+            for (Event event : events) {
+                if (event.blockNumber < startBlock) {
+                    continue;
+                }
+                if (skipping && event.blockNumber == startBlock) {
+                    skipping = !event.transactionId.equals(afterTransactionId);
+                    continue;
+                }
+                listener.accept(event);
+            }
+        }
+        listeners.add(listener);
+        return () -> {
+            synchronized (this) {
+                listeners.remove(listener);
+            }
+        };
+    }
+
+    private boolean readsAreCurrent(Simulation sim) {
+        for (Map.Entry<String, Long> read : sim.reads.entrySet()) {
+            Entry current = state.get(read.getKey());
+            long version = current != null ? current.version : 0;
+            if (version != read.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void initLedger(Simulation sim) throws ChaincodeException {
+        try (InputStream in = getClass().getResourceAsStream("/inmemory/init-ledger.json")) {
+            if (in == null) {
+                return;
+            }
+            for (JsonNode doc : objectMapper.readTree(in)) {
+                sim.writes.put(doc.get("id").asText(), (ObjectNode) doc);
+            }
+        } catch (IOException e) {
+            throw new ChaincodeException("error al leer los datos iniciales: " + e.getMessage());
+        }
+    }
+
+    private void create(Simulation sim, String json, String existsMessage, String eventName) throws ChaincodeException {
+        ObjectNode doc = parseObject(json);
+        String id = text(doc, "id");
+        if (id == null || id.isEmpty()) {
+            throw new ChaincodeException("el id es obligatorio");
+        }
+        if (read(sim, id) != null) {
+            throw new ChaincodeException(String.format(existsMessage, id));
+        }
+        write(sim, id, doc, eventName);
+    }
+
+    private void firmarReceta(Simulation sim, String id, String firma) throws ChaincodeException {
+        ObjectNode receta = readRequired(sim, id, "la receta %s no existe");
+        if (!"draft".equals(text(receta, "status"))) {
+            throw new ChaincodeException("la receta " + id + " no puede ser firmada porque no está en estado 'draft'");
+        }
+        receta.put("signature", firma);
+        receta.put("status", "active");
+        receta.put("statusChange", "FIRMADA");
+        write(sim, id, receta, "FirmarReceta");
+    }
+
+    private void entregarReceta(Simulation sim, String id) throws ChaincodeException {
+        ObjectNode receta = readRequired(sim, id, "la receta %s no existe");
+        if (!"active".equals(text(receta, "status"))) {
+            throw new ChaincodeException("solo se puede entregar la receta si está en estado 'active'");
+        }
+        receta.put("status", "completed");
+        write(sim, id, receta, "EntregarReceta");
+    }
+
+    private void deleteReceta(Simulation sim, String id) throws ChaincodeException {
+        ObjectNode receta = readRequired(sim, id, "la receta %s no existe");
+        if (!"draft".equals(text(receta, "status"))) {
+            throw new ChaincodeException("la receta " + id + " no puede ser firmada porque no está en estado 'draft'");
+        }
+        receta.put("status", CANCELLED);
+        write(sim, id, receta, "DeleteReceta");
+    }
+
+    private void transferirReceta(Simulation sim, String id, String nuevoOwner) throws ChaincodeException {
+        ObjectNode receta = readRequired(sim, id, "la receta %s no existe");
+        String oldOwner = text(receta, "owner");
+        receta.put("owner", nuevoOwner);
+        write(sim, id, receta, "TransferirReceta");
+        sim.result = (oldOwner != null ? oldOwner : "").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ArrayNode multiple(Simulation sim, String idsJson, boolean skipCancelled) throws ChaincodeException {
+        ArrayNode result = objectMapper.createArrayNode();
+        for (JsonNode id : parse(idsJson)) {
+            ObjectNode doc = read(sim, id.asText());
+            if (doc == null || (skipCancelled && CANCELLED.equalsIgnoreCase(trim(text(doc, "status"))))) {
+                continue;
+            }
+            result.add(doc);
+        }
+        return result;
+    }
+
+    private byte[] recetasPorDniYEstados(List<String> args) throws ChaincodeException {
+        String dni = arg(args, 0);
+        List<String> estados = new ArrayList<>();
+        for (JsonNode estado : parse(arg(args, 1))) {
+            estados.add(estado.asText());
+        }
+        if (dni.isEmpty() || estados.isEmpty()) {
+            throw new ChaincodeException("el dni y al menos un estado son obligatorios");
+        }
+        return page(doc -> dni.equals(text(doc, "patientDocumentNumber")) && estados.contains(text(doc, "status")),
+                pageSize(arg(args, 2)), arg(args, 3));
+    }
+
+    private byte[] vacunasPorDni(List<String> args) throws ChaincodeException {
+        String dni = arg(args, 0);
+        if (dni.isEmpty()) {
+            throw new ChaincodeException("el dni es obligatorio");
+        }
+        return page(doc -> dni.equals(text(doc, "patientDocumentNumber")) && doc.has("vaccinateCode"),
+                pageSize(arg(args, 1)), arg(args, 2));
+    }
+
+    private byte[] vacunasPorDniYEstado(String dni, String estado) throws ChaincodeException {
+        if (dni.isEmpty()) {
+            throw new ChaincodeException("el dni es obligatorio");
+        }
+        return toBytes(list(doc -> dni.equals(text(doc, "patientDocumentNumber"))
+                && (estado.isEmpty() || estado.equals(text(doc, "status")))));
+    }
+
+    /**
+     * Pagina en orden de clave; el bookmark es la ultima clave devuelta.
+     */
+    private byte[] page(Predicate<ObjectNode> filter, int pageSize, String bookmark) throws ChaincodeException {
+        Map<String, Entry> range = bookmark.isEmpty() ? state : state.tailMap(bookmark, false);
+        ArrayNode componentes = objectMapper.createArrayNode();
+        String last = bookmark;
+        for (Map.Entry<String, Entry> entry : range.entrySet()) {
+            if (componentes.size() >= pageSize) {
+                break;
+            }
+            if (filter.test(entry.getValue().value)) {
+                componentes.add(entry.getValue().value);
+                last = entry.getKey();
+            }
+        }
+        ObjectNode result = objectMapper.createObjectNode();
+        result.set("componentes", componentes);
+        result.put("bookmark", last);
+        return toBytes(result);
+    }
+
+    private ArrayNode list(Predicate<ObjectNode> filter) {
+        ArrayNode result = objectMapper.createArrayNode();
+        for (Entry entry : state.values()) {
+            if (filter.test(entry.value)) {
+                result.add(entry.value);
+            }
+        }
+        return result;
+    }
+
+    private ObjectNode read(Simulation sim, String key) {
+        Entry entry = state.get(key);
+        sim.reads.putIfAbsent(key, entry != null ? entry.version : 0);
+        return entry != null ? entry.value.deepCopy() : null;
+    }
+
+    private ObjectNode readRequired(Simulation sim, String key, String notFoundMessage) throws ChaincodeException {
+        ObjectNode doc = read(sim, key);
+        if (doc == null) {
+            throw new ChaincodeException(String.format(notFoundMessage, key));
+        }
+        return doc;
+    }
+
+    private void write(Simulation sim, String key, ObjectNode value, String eventName) throws ChaincodeException {
+        sim.writes.put(key, value);
+        sim.eventName = eventName;
+        sim.eventPayload = toBytes(value);
+    }
+
+    private static String arg(List<String> args, int index) throws ChaincodeException {
+        if (index >= args.size()) {
+            throw new ChaincodeException("Incorrect number of params. Expected more than " + args.size());
+        }
+        return args.get(index);
+    }
+
+    private static int pageSize(String value) throws ChaincodeException {
+        try {
+            return Math.max(1, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            throw new ChaincodeException("pageSize invalido: " + value);
+        }
+    }
+
+    private static String text(JsonNode doc, String field) {
+        JsonNode value = doc.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+
+    private static String trim(String value) {
+        return value != null ? value.trim() : null;
+    }
+
+    private JsonNode parse(String json) throws ChaincodeException {
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            throw new ChaincodeException("argumento JSON invalido: " + e.getMessage());
+        }
+    }
+
+    private ObjectNode parseObject(String json) throws ChaincodeException {
+        JsonNode node = parse(json);
+        if (!node.isObject()) {
+            throw new ChaincodeException("se esperaba un objeto JSON");
+        }
+        return (ObjectNode) node;
+    }
+
+    private byte[] toBytes(JsonNode node) throws ChaincodeException {
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new ChaincodeException("error al serializar: " + e.getMessage());
+        }
+    }
+}
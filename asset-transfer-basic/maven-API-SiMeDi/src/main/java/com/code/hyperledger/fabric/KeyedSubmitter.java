@@ -0,0 +1,128 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import org.hyperledger.fabric.client.CommitException;
+import org.hyperledger.fabric.client.CommitStatusException;
+import org.hyperledger.fabric.client.EndorseException;
+import org.hyperledger.fabric.client.SubmitException;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transiciones de estado que leen y escriben la misma clave (EntregarReceta,
+ * FirmarReceta, ...). Dentro de esta instancia las transacciones sobre una
+ * misma clave van de a una, asi dos requests locales no se invalidan entre
+ * si. Si el commit igual sale MVCC_READ_CONFLICT (otra instancia u otra
+ * organizacion escribio la clave en el medio) se vuelve a endosar contra el
+ * estado nuevo y se reenvia, hasta fabric.conflicts.maxAttempts. Si el
+ * chaincode rechaza el reendoso, por ejemplo porque la receta ya fue
+ * entregada, ese error es el que se devuelve.
+ */
+@Component
+public class KeyedSubmitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyedSubmitter.class);
+
+    private static final class KeyLock {
+        final ReentrantLock lock = new ReentrantLock();
+        int users;
+    }
+
+    private final FabricConnectionManager connections;
+    private final FabricMetrics metrics;
+    private final FabricConfigProperties.Conflicts config;
+    private final Map<String, KeyLock> locks = new ConcurrentHashMap<>();
+
+    public KeyedSubmitter(FabricConnectionManager connections, FabricMetrics metrics, FabricConfigProperties config) {
+        this.connections = connections;
+        this.metrics = metrics;
+        this.config = config.getConflicts();
+    }
+
+    public byte[] submit(String key, String name, String... args)
+            throws EndorseException, SubmitException, CommitStatusException, CommitException {
+        KeyLock keyLock = acquire(key, name);
+        try {
+            return submitWithResubmission(key, name, args);
+        } finally {
+            release(key, keyLock);
+        }
+    }
+
+    /**
+     * Claves con alguna transaccion en curso o esperando en esta instancia.
+     */
+    public int getActiveKeys() {
+        return locks.size();
+    }
+
+    private byte[] submitWithResubmission(String key, String name, String[] args)
+            throws EndorseException, SubmitException, CommitStatusException, CommitException {
+        int maxAttempts = Math.max(1, config.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                byte[] result = connections.submitTransaction(name, args);
+                if (attempt > 1) {
+                    metrics.conflict(name, "resolved");
+                }
+                return result;
+            } catch (CommitException e) {
+                if (!isReadConflict(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    metrics.conflict(name, "exhausted");
+                    logger.warn("{} sobre {}: {} en {} intentos, se abandona", name, key, e.getCode(), attempt);
+                    throw e;
+                }
+                metrics.conflict(name, "resubmitted");
+                long backoff = backoff(attempt);
+                logger.debug("{} sobre {}: {} en la transaccion {}, reendosando en {} ms", name, key,
+                        e.getCode(), e.getTransactionId(), backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public static boolean isReadConflict(CommitException e) {
+        return e.getCode() == TxValidationCode.MVCC_READ_CONFLICT
+                || e.getCode() == TxValidationCode.PHANTOM_READ_CONFLICT;
+    }
+
+    private long backoff(int attempt) {
+        long base = Math.max(1, config.getBackoffMs());
+        long exponential = Math.min(config.getMaxBackoffMs(), base << Math.min(attempt - 1, 20));
+        return exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+    }
+
+    private KeyLock acquire(String key, String name) {
+        KeyLock keyLock = locks.compute(key, (k, current) -> {
+            KeyLock result = current != null ? current : new KeyLock();
+            result.users++;
+            return result;
+        });
+        if (!keyLock.lock.tryLock()) {
+            long start = System.nanoTime();
+            keyLock.lock.lock();
+            metrics.keyWait(name, System.nanoTime() - start);
+        }
+        return keyLock;
+    }
+
+    private void release(String key, KeyLock keyLock) {
+        keyLock.lock.unlock();
+        locks.compute(key, (k, current) -> --current.users == 0 ? null : current);
+    }
+}
@@ -0,0 +1,38 @@
+package com.code.hyperledger.fabric;
+
+import java.util.Arrays;
+
+/**
+ * Ultimas latencias exitosas de una funcion, para calcular el p95 con el
+ * que se decide cuando mandar una consulta de respaldo. El percentil se
+ * recalcula cada {@link #REFRESH} muestras, no en cada consulta.
+ */
+class LatencyWindow {
+
+    static final int MIN_SAMPLES = 20;
+    private static final int SIZE = 256;
+    private static final int REFRESH = 32;
+
+    private final long[] samples = new long[SIZE];
+    private long count;
+    private int next;
+    private volatile long p95 = -1;
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % SIZE;
+        count++;
+        if (count >= MIN_SAMPLES && (count < SIZE ? count % 4 == 0 : count % REFRESH == 0)) {
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SIZE));
+            Arrays.sort(sorted);
+            p95 = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+        }
+    }
+
+    /**
+     * p95 en nanosegundos, o -1 si todavia no hay suficientes muestras.
+     */
+    long p95() {
+        return p95;
+    }
+}
@@ -0,0 +1,6 @@
+package com.code.hyperledger.fabric;
+
+public enum LoadBalancingStrategy {
+    ROUND_ROBIN,
+    LEAST_OUTSTANDING
+}
@@ -0,0 +1,119 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.models.FragmentoFallido;
+import com.code.hyperledger.models.ResultadoPorIds;
+import com.code.hyperledger.tracing.TraceContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.client.GatewayException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lecturas multi-get (GetMultipleRecetas/GetMultipleVacunas) con listas de
+ * IDs largas: se parten en fragmentos de chunkSize que se evaluan en paralelo
+ * (cada uno elige peer por su cuenta, asi se reparten entre los configurados)
+ * y se devuelven en el orden de la lista. Un fragmento que falla se informa
+ * aparte sin perder los demas; si fallan todos se lanza el error del primero.
+ */
+@Component
+public class MultiGetReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiGetReader.class);
+
+    private final QueryCoalescer queries;
+    private final int chunkSize;
+    private final ExecutorService executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public MultiGetReader(QueryCoalescer queries, FabricConfigProperties config) {
+        this.queries = queries;
+        this.chunkSize = Math.max(1, config.getMultiGet().getChunkSize());
+        this.executor = Executors.newFixedThreadPool(Math.max(1, config.getMultiGet().getMaxConcurrency()),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "multi-get-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Las respuestas de cada fragmento que salio bien, tal como las devolvio
+     * el chaincode (una lista JSON por fragmento).
+     */
+    public ResultadoPorIds<byte[]> evaluate(String function, List<String> ids)
+            throws GatewayException, JsonProcessingException {
+        if (ids.size() <= chunkSize) {
+            return new ResultadoPorIds<>(List.of(evaluateChunk(function, ids)), List.of());
+        }
+        List<CompletableFuture<byte[]>> pending = new ArrayList<>();
+        for (int desde = chunkSize; desde < ids.size(); desde += chunkSize) {
+            List<String> chunk = ids.subList(desde, Math.min(desde + chunkSize, ids.size()));
+            pending.add(CompletableFuture.supplyAsync(TraceContext.propagate(IdentityContext.propagate(() -> {
+                try {
+                    return evaluateChunk(function, chunk);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            })), executor));
+        }
+
+        // el primer fragmento lo evalua el hilo del request mientras tanto
+        List<byte[]> componentes = new ArrayList<>();
+        List<FragmentoFallido> fallidos = new ArrayList<>();
+        Exception first = null;
+        for (int i = 0; i <= pending.size(); i++) {
+            int desde = i * chunkSize;
+            int hasta = Math.min(desde + chunkSize, ids.size());
+            try {
+                componentes.add(i == 0 ? evaluateChunk(function, ids.subList(0, hasta)) : pending.get(i - 1).join());
+            } catch (Exception e) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (first == null) {
+                    first = cause instanceof Exception ? (Exception) cause : e;
+                }
+                String codigo = cause instanceof GatewayException
+                        ? ((GatewayException) cause).getStatus().getCode().name()
+                        : null;
+                fallidos.add(new FragmentoFallido(i, desde, hasta, codigo, cause.getMessage()));
+                logger.warn("{}: fallo el fragmento {} (IDs {} a {})", function, i, desde, hasta - 1, cause);
+            }
+        }
+        if (componentes.isEmpty()) {
+            if (first instanceof GatewayException) {
+                throw (GatewayException) first;
+            }
+            if (first instanceof JsonProcessingException) {
+                throw (JsonProcessingException) first;
+            }
+            throw (RuntimeException) first;
+        }
+        return new ResultadoPorIds<>(componentes, fallidos);
+    }
+
+    private byte[] evaluateChunk(String function, List<String> ids) throws GatewayException, JsonProcessingException {
+        return queries.evaluate(function, objectMapper.writeValueAsString(ids));
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
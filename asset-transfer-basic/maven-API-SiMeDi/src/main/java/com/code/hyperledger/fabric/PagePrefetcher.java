@@ -0,0 +1,182 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.cache.LedgerCache;
+import com.code.hyperledger.configs.CacheConfigProperties;
+import com.code.hyperledger.models.CacheStats;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.client.GatewayException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Consultas paginadas por paciente: despues de servir una pagina lee en
+ * segundo plano las siguientes (hasta prefetchDepth) con el bookmark que
+ * devolvio el chaincode y las guarda un rato, asi el pedido de la pagina
+ * siguiente se contesta sin ir al peer. Las paginas se indexan por funcion,
+ * argumentos y bookmark; el primer argumento tiene que ser el DNI del
+ * paciente, que es por donde se invalidan.
+ * Si la cola de lecturas por adelantado esta llena, la lectura se descarta.
+ */
+@Component
+public class PagePrefetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PagePrefetcher.class);
+
+    private static final char SEP = '\u0000';
+
+    private final QueryCoalescer queries;
+    private final FabricMetrics metrics;
+    private final LedgerCache<byte[]> pages;
+    private final boolean enabled;
+    private final int depth;
+    private final ThreadPoolExecutor executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public PagePrefetcher(QueryCoalescer queries, FabricMetrics metrics, CacheConfigProperties properties) {
+        this.queries = queries;
+        this.metrics = metrics;
+        CacheConfigProperties.Paginas config = properties.getPaginas();
+        this.pages = new LedgerCache<>("paginas", config);
+        this.enabled = config.isEnabled();
+        this.depth = Math.max(0, config.getPrefetchDepth());
+        int threads = Math.max(1, config.getPrefetchThreads());
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getPrefetchQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "page-prefetch-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Pagina de la funcion con esos argumentos y el bookmark como ultimo
+     * argumento. El arreglo devuelto puede estar compartido y no se debe
+     * modificar.
+     */
+    public byte[] evaluate(String function, int pageSize, String bookmark, String... args) throws GatewayException {
+        String key = key(function, args, bookmark);
+        byte[] page = pages.getIfPresent(key);
+        if (page != null) {
+            metrics.prefetch(function, "hit");
+        } else {
+            long generation = pages.generation();
+            page = queries.evaluate(function, withBookmark(args, bookmark));
+            pages.put(key, page, generation);
+        }
+        if (enabled && depth > 0) {
+            schedule(function, pageSize, bookmark, args, page);
+        }
+        return page;
+    }
+
+    /**
+     * Olvida las paginas guardadas de un paciente, por ejemplo despues de
+     * cargarle una receta o una vacuna.
+     */
+    public void invalidarPaciente(String dni) {
+        if (dni == null) {
+            pages.invalidateAll();
+            return;
+        }
+        String prefix = dni + SEP;
+        pages.invalidateIf(key -> key.startsWith(prefix, key.indexOf(SEP) + 1));
+    }
+
+    public void invalidateAll() {
+        pages.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return pages.getStats();
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(String function, int pageSize, String bookmark, String[] args, byte[] page) {
+        try {
+            executor.execute(() -> prefetch(function, pageSize, bookmark, args, page));
+        } catch (RejectedExecutionException e) {
+            metrics.prefetch(function, "dropped");
+        }
+    }
+
+    private void prefetch(String function, int pageSize, String bookmark, String[] args, byte[] page) {
+        String current = bookmark;
+        byte[] currentPage = page;
+        for (int i = 0; i < depth; i++) {
+            String next = nextBookmark(currentPage, current, pageSize);
+            if (next == null) {
+                return;
+            }
+            String key = key(function, args, next);
+            byte[] nextPage = pages.getIfPresent(key);
+            if (nextPage == null) {
+                long generation = pages.generation();
+                try {
+                    nextPage = queries.evaluate(function, withBookmark(args, next));
+                } catch (GatewayException | RuntimeException e) {
+                    metrics.prefetch(function, "failed");
+                    logger.debug("No se pudo leer por adelantado la pagina siguiente de {}", function, e);
+                    return;
+                }
+                pages.put(key, nextPage, generation);
+                metrics.prefetch(function, "fetched");
+            }
+            current = next;
+            currentPage = nextPage;
+        }
+    }
+
+    /**
+     * Bookmark de la pagina siguiente, o null si esta era la ultima: vino
+     * incompleta, sin bookmark o con el mismo con el que se pidio.
+     */
+    private String nextBookmark(byte[] page, String previous, int pageSize) {
+        if (page == null || page.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(page);
+            JsonNode componentes = root.get("componentes");
+            JsonNode bookmark = root.get("bookmark");
+            if (componentes == null || !componentes.isArray() || componentes.size() < pageSize
+                    || bookmark == null || !bookmark.isTextual()) {
+                return null;
+            }
+            String next = bookmark.asText();
+            return next.isEmpty() || next.equals(previous) ? null : next;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String[] withBookmark(String[] args, String bookmark) {
+        String[] full = Arrays.copyOf(args, args.length + 1);
+        full[args.length] = bookmark;
+        return full;
+    }
+
+    private static String key(String function, String[] args, String bookmark) {
+        StringBuilder key = new StringBuilder(function);
+        for (String arg : args) {
+            key.append(SEP).append(arg);
+        }
+        return key.append(SEP).append(bookmark).toString();
+    }
+}
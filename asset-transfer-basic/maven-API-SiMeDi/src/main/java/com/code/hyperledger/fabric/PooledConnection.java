@@ -0,0 +1,92 @@
+package com.code.hyperledger.fabric;
+
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import org.hyperledger.fabric.client.Contract;
+import org.hyperledger.fabric.client.Gateway;
+import org.hyperledger.fabric.client.Network;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Un canal gRPC con su Gateway y el Contract del chaincode configurado. Con el
+ * perfil inmemory no hay canal ni Gateway, solo el Network en memoria.
+ */
+class PooledConnection {
+
+    private final int id;
+    private final String endpoint;
+    private final ManagedChannel channel;
+    private final Gateway gateway;
+    private final Network network;
+    private final Contract contract;
+    private final AtomicLong leases = new AtomicLong();
+
+    PooledConnection(int id, String endpoint, ManagedChannel channel, Gateway gateway,
+            String channelName, String chaincodeName) {
+        this.id = id;
+        this.endpoint = endpoint;
+        this.channel = channel;
+        this.gateway = gateway;
+        this.network = gateway.getNetwork(channelName);
+        this.contract = network.getContract(chaincodeName);
+    }
+
+    PooledConnection(int id, String endpoint, Network network, String chaincodeName) {
+        this.id = id;
+        this.endpoint = endpoint;
+        this.channel = null;
+        this.gateway = null;
+        this.network = network;
+        this.contract = network.getContract(chaincodeName);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    Network getNetwork() {
+        return network;
+    }
+
+    Contract lease() {
+        leases.incrementAndGet();
+        return contract;
+    }
+
+    /**
+     * El Contract de esta conexion firmado con otra identidad.
+     */
+    Contract lease(IdentityGateways identity) {
+        leases.incrementAndGet();
+        return identity.contract(id);
+    }
+
+    ManagedChannel getChannel() {
+        return channel;
+    }
+
+    long getLeases() {
+        return leases.get();
+    }
+
+    ConnectivityState getState() {
+        return channel != null ? channel.getState(false) : ConnectivityState.READY;
+    }
+
+    void close(long timeoutSeconds) throws InterruptedException {
+        if (channel == null) {
+            return;
+        }
+        gateway.close();
+        channel.shutdown();
+        if (!channel.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+            channel.shutdownNow();
+        }
+    }
+}
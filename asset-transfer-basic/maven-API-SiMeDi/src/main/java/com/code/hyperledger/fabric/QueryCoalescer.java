@@ -0,0 +1,78 @@
+package com.code.hyperledger.fabric;
+
+import org.hyperledger.fabric.client.GatewayException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Junta las evaluaciones identicas (misma funcion y argumentos)
+ * que estan en curso al mismo tiempo: la primera llega al peer y las demas
+ * esperan su resultado. Cuando la llamada termina se olvida, no es un cache.
+ * El arreglo devuelto es compartido entre los que esperaban y no se debe
+ * modificar.
+ */
+@Component
+public class QueryCoalescer {
+
+    private final FabricConnectionManager connections;
+    private final FabricMetrics metrics;
+    private final ConcurrentHashMap<List<String>, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    public QueryCoalescer(FabricConnectionManager connections, FabricMetrics metrics) {
+        this.connections = connections;
+        this.metrics = metrics;
+    }
+
+    public byte[] evaluate(String function, String... args) throws GatewayException {
+        List<String> key = new ArrayList<>(args.length + 1);
+        // sin la identidad: las evaluaciones se firman siempre con la identidad por defecto
+        key.add(function);
+        Collections.addAll(key, args);
+
+        CompletableFuture<byte[]> call = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            metrics.coalescing(function, true);
+            return await(existing);
+        }
+        metrics.coalescing(function, false);
+        try {
+            byte[] result = connections.evaluateTransaction(function, args);
+            call.complete(result);
+            return result;
+        } catch (GatewayException | RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> call) throws GatewayException {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GatewayException(io.grpc.Status.CANCELLED
+                    .withDescription("Interrumpido esperando una consulta en curso")
+                    .withCause(e)
+                    .asRuntimeException());
+        } catch (ExecutionException e) {
+            // el mismo error que recibio la llamada original
+            Throwable cause = e.getCause();
+            if (cause instanceof GatewayException) {
+                throw (GatewayException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+}
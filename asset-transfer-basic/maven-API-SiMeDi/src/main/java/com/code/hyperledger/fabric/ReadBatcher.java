@@ -0,0 +1,156 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.client.GatewayException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Junta las lecturas por ID que llegan dentro de una ventana corta (o hasta
+ * completar maxSize) en una sola evaluacion de la funcion multi-get del
+ * chaincode y le devuelve a cada uno su elemento. No usa hilos propios: el
+ * primero en llegar espera la ventana y hace la llamada por todos; si el lote
+ * se llena antes, la hace el que lo completo.
+ */
+public class ReadBatcher<T> {
+
+    private static class Batch<T> {
+        final Map<String, CompletableFuture<T>> pending = new LinkedHashMap<>();
+    }
+
+    private final String function;
+    private final Function<T, String> idOf;
+    private final FabricConnectionManager connections;
+    private final FabricMetrics metrics;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxSize;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JavaType listType;
+
+    private Batch<T> current;
+
+    public ReadBatcher(String function, Class<T> type, Function<T, String> idOf,
+            FabricConnectionManager connections, FabricMetrics metrics, FabricConfigProperties.Batching config) {
+        this.function = function;
+        this.idOf = idOf;
+        this.connections = connections;
+        this.metrics = metrics;
+        this.enabled = config.isEnabled();
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(config.getWindowMicros());
+        this.maxSize = Math.max(1, config.getMaxSize());
+        this.listType = objectMapper.getTypeFactory().constructCollectionType(List.class, type);
+    }
+
+    /**
+     * El elemento con ese ID, o null si no vino en la respuesta del multi-get
+     * (no existe, esta filtrado por la funcion o el batching esta apagado).
+     */
+    public T load(String id) throws GatewayException, IOException {
+        if (!enabled) {
+            return null;
+        }
+        Batch<T> batch;
+        CompletableFuture<T> result;
+        boolean leader = false;
+        boolean full = false;
+        synchronized (this) {
+            if (current == null) {
+                current = new Batch<>();
+                leader = true;
+            }
+            batch = current;
+            result = batch.pending.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (batch.pending.size() >= maxSize) {
+                current = null;
+                full = true;
+            }
+        }
+        if (full) {
+            execute(batch);
+        } else if (leader) {
+            awaitWindow();
+            boolean mine;
+            synchronized (this) {
+                mine = current == batch;
+                if (mine) {
+                    current = null;
+                }
+            }
+            if (mine) {
+                execute(batch);
+            }
+        }
+        return await(result);
+    }
+
+    private void awaitWindow() {
+        long deadline = System.nanoTime() + windowNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void execute(Batch<T> batch) {
+        // el lote ya no es visible para otros hilos: se puede leer sin lock
+        List<String> ids = new ArrayList<>(batch.pending.keySet());
+        metrics.batchSize(function, ids.size());
+        try {
+            byte[] response = connections.evaluateTransaction(function, objectMapper.writeValueAsString(ids));
+            List<T> items = response == null || response.length == 0 ? null : objectMapper.readValue(response, listType);
+            Map<String, T> byId = new HashMap<>();
+            if (items != null) {
+                for (T item : items) {
+                    byId.put(idOf.apply(item), item);
+                }
+            }
+            for (Map.Entry<String, CompletableFuture<T>> entry : batch.pending.entrySet()) {
+                entry.getValue().complete(byId.get(entry.getKey()));
+            }
+        } catch (Exception | Error e) {
+            for (CompletableFuture<T> pending : batch.pending.values()) {
+                pending.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> result) throws GatewayException, IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GatewayException(io.grpc.Status.CANCELLED
+                    .withDescription("Interrumpido esperando una lectura agrupada")
+                    .withCause(e)
+                    .asRuntimeException());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GatewayException) {
+                throw (GatewayException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
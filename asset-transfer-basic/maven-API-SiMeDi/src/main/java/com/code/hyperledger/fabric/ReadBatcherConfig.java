@@ -0,0 +1,25 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.models.Receta;
+import com.code.hyperledger.models.Vacuna;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ReadBatcherConfig {
+
+    @Bean
+    public ReadBatcher<Receta> recetaBatcher(FabricConnectionManager connections, FabricMetrics metrics,
+            FabricConfigProperties properties) {
+        return new ReadBatcher<>("GetMultipleRecetas", Receta.class, Receta::getId, connections, metrics,
+                properties.getBatching());
+    }
+
+    @Bean
+    public ReadBatcher<Vacuna> vacunaBatcher(FabricConnectionManager connections, FabricMetrics metrics,
+            FabricConfigProperties properties) {
+        return new ReadBatcher<>("GetMultipleVacunas", Vacuna.class, Vacuna::getId, connections, metrics,
+                properties.getBatching());
+    }
+}
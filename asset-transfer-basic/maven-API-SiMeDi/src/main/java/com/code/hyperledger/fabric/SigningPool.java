@@ -0,0 +1,98 @@
+package com.code.hyperledger.fabric;
+
+import org.hyperledger.fabric.client.identity.Signer;
+
+import java.io.Closeable;
+import java.security.GeneralSecurityException;
+import java.security.SignatureException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hace las firmas en un pool propio de tantos hilos como nucleos (o
+ * fabric.signing.threads), asi cientos de requests enviando a la vez no se
+ * reparten la CPU firmando todos juntos: esperan su turno en la cola y el
+ * resto de la aplicacion sigue teniendo CPU. Con la cola llena la firma se
+ * hace en el hilo que la pide. Un solo pool firma para todas las
+ * identidades.
+ */
+final class SigningPool implements Closeable {
+
+    private static final class SigningThread extends Thread {
+        SigningThread(Runnable runnable, String name) {
+            super(runnable, name);
+            setDaemon(true);
+        }
+    }
+
+    private final FabricMetrics metrics;
+    private final ThreadPoolExecutor executor;
+
+    SigningPool(int threads, int queueCapacity, FabricMetrics metrics) {
+        this.metrics = metrics;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> new SigningThread(runnable, "fabric-signer-" + count.incrementAndGet()));
+    }
+
+    /**
+     * Signer que firma con delegate en este pool.
+     */
+    Signer wrap(Signer delegate) {
+        return digest -> sign(delegate, digest);
+    }
+
+    private byte[] sign(Signer delegate, byte[] digest) throws GeneralSecurityException {
+        if (Thread.currentThread() instanceof SigningThread) {
+            return delegate.sign(digest);
+        }
+        long queuedAt = System.nanoTime();
+        Future<byte[]> signature;
+        try {
+            signature = executor.submit(() -> {
+                long start = System.nanoTime();
+                metrics.signing("queue", start - queuedAt);
+                byte[] result = delegate.sign(digest);
+                metrics.signing("sign", System.nanoTime() - start);
+                return result;
+            });
+        } catch (RejectedExecutionException e) {
+            long start = System.nanoTime();
+            byte[] result = delegate.sign(digest);
+            metrics.signing("inline", System.nanoTime() - start);
+            return result;
+        }
+        try {
+            return signature.get();
+        } catch (InterruptedException e) {
+            signature.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SignatureException("Interrumpido esperando la firma", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GeneralSecurityException) {
+                throw (GeneralSecurityException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SignatureException("Error firmando", cause);
+        }
+    }
+
+    int getThreads() {
+        return executor.getCorePoolSize();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -1,5 +1,6 @@
 package com.code.hyperledger.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,7 +9,12 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 public class AssetIdDto {
+    // ID con el que quedo registrado el asset en el ledger
+    private String id;
     private String Dni;
     private String TimeStamp;
+    // solo en modo async: la transaccion se consulta en /transacciones/{txId}
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String txId;
 }
 
@@ -0,0 +1,25 @@
+package com.code.hyperledger.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EstadoTransaccion {
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String CONFIRMADA = "CONFIRMADA";
+    public static final String RECHAZADA = "RECHAZADA";
+    public static final String ERROR = "ERROR";
+
+    private String txId;
+    private String funcion;
+    private String estado;
+    // TxValidationCode devuelto por el peer (VALID, MVCC_READ_CONFLICT, ...)
+    private String codigo;
+    private Long bloque;
+    private String enviada;
+    private String finalizada;
+    private String error;
+}
@@ -0,0 +1,39 @@
+package com.code.hyperledger.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FabricPoolStats {
+    private int poolSize;
+    private String strategy;
+    private List<PeerStats> peers;
+    // identidades de fabric.identities con Gateways abiertos
+    private List<String> identities;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class PeerStats {
+        private String endpoint;
+        private boolean healthy;
+        private int outstanding;
+        private long requests;
+        private long failures;
+        private List<ConnectionStats> connections;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ConnectionStats {
+        private int id;
+        private String state;
+        private long leases;
+    }
+}
@@ -0,0 +1,18 @@
+package com.code.hyperledger.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FragmentoFallido {
+    private int fragmento;
+    // posiciones de la lista de IDs pedida: desde inclusive, hasta exclusive
+    private int desde;
+    private int hasta;
+    // codigo gRPC del peer, si lo hubo
+    private String codigo;
+    private String error;
+}
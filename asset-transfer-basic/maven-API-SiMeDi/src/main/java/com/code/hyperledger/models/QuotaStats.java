@@ -0,0 +1,17 @@
+package com.code.hyperledger.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class QuotaStats {
+    private String name;
+    private double ratePerSecond;
+    private int burst;
+    private long clients;
+    private long admitted;
+    private long throttled;
+}
@@ -0,0 +1,20 @@
+package com.code.hyperledger.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadModelStats {
+    private boolean enabled;
+    private boolean ready;
+    private boolean servingQueries;
+    private long recetas;
+    private long vacunas;
+    private long blockNumber;
+    private String transactionId;
+    private long events;
+    private long logLines;
+}
@@ -0,0 +1,18 @@
+package com.code.hyperledger.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoCarga {
+    private int indice;
+    private String id;
+    private String txId;
+    // mismos valores que EstadoTransaccion.estado
+    private String estado;
+    private String codigo;
+    private String error;
+}
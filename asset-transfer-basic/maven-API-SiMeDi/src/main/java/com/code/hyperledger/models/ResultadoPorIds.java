@@ -0,0 +1,16 @@
+package com.code.hyperledger.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultadoPorIds<T> {
+    // en el orden de los IDs pedidos, sin los de los fragmentos fallidos
+    private List<T> componentes;
+    private List<FragmentoFallido> fallidos;
+}
@@ -0,0 +1,22 @@
+package com.code.hyperledger.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TraceSpan {
+    private String traceId;
+    private String spanId;
+    private String parentId;
+    private String nombre;
+    private String inicio;
+    private long duracionMicros;
+    // fabric.txId, fabric.function, http.status, ...
+    private Map<String, String> atributos;
+    private String error;
+}
@@ -0,0 +1,229 @@
+package com.code.hyperledger.readmodel;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.configs.ReadModelConfigProperties;
+import com.code.hyperledger.fabric.FabricConnectionManager;
+import com.code.hyperledger.models.ReadModelStats;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.client.ChaincodeEvent;
+import org.hyperledger.fabric.client.CloseableIterator;
+import org.hyperledger.fabric.client.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modelo de lectura fuera de la cadena para las consultas paginadas por
+ * paciente. Se arma una vez recorriendo GetRecetasPaginadoCompleto (con las
+ * canceladas, que tambien se consultan por estado) y GetVacunasPaginado y
+ * despues se mantiene con los eventos del chaincode, retomando desde el
+ * ultimo evento aplicado al reiniciar. Es eventualmente consistente: un
+ * cambio se ve cuando llega su evento, poco despues del commit. Mientras no
+ * esta completo, o con readmodel.fallbackToLedger, las consultas van al
+ * ledger. Los bookmarks que devuelve son IDs y no sirven
+ * para seguir paginando contra el ledger, ni al reves.
+ */
+@Component
+public class ReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadModel.class);
+
+    private static final Map<String, String> EVENT_TYPES = Map.of(
+            "CreateReceta", ReadModelStore.RECETA,
+            "FirmarReceta", ReadModelStore.RECETA,
+            "EntregarReceta", ReadModelStore.RECETA,
+            "DeleteReceta", ReadModelStore.RECETA,
+            "TransferirReceta", ReadModelStore.RECETA,
+            "CreateVacuna", ReadModelStore.VACUNA);
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    private final FabricConnectionManager connections;
+    private final FabricConfigProperties fabricConfig;
+    private final ReadModelConfigProperties config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong events = new AtomicLong();
+
+    private volatile ReadModelStore store;
+    private volatile boolean running;
+    private volatile CloseableIterator<ChaincodeEvent> iterator;
+    private Thread worker;
+
+    public ReadModel(FabricConnectionManager connections, FabricConfigProperties fabricConfig,
+            ReadModelConfigProperties config) {
+        this.connections = connections;
+        this.fabricConfig = fabricConfig;
+        this.config = config;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "read-model");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        CloseableIterator<ChaincodeEvent> current = iterator;
+        if (current != null) {
+            current.close();
+        }
+        if (worker != null) {
+            worker.interrupt();
+        }
+        ReadModelStore opened = store;
+        if (opened != null) {
+            opened.close();
+        }
+    }
+
+    /**
+     * Si las consultas paginadas por paciente se pueden contestar desde aca.
+     */
+    public boolean isServing() {
+        ReadModelStore current = store;
+        return config.isEnabled() && !config.isFallbackToLedger() && current != null && current.isReady();
+    }
+
+    /**
+     * Misma respuesta que GetRecetasPorDniYEstadosPaginado.
+     */
+    public byte[] recetasPorDniYEstados(String dni, List<String> estados, int pageSize, String bookmark)
+            throws IOException {
+        return store.page(ReadModelStore.RECETA, dni, estados, pageSize, bookmark);
+    }
+
+    /**
+     * Misma respuesta que GetVacunasPorDniPaginado.
+     */
+    public byte[] vacunasPorDni(String dni, int pageSize, String bookmark) throws IOException {
+        return store.page(ReadModelStore.VACUNA, dni, null, pageSize, bookmark);
+    }
+
+    public ReadModelStats getStats() {
+        ReadModelStore current = store;
+        if (current == null) {
+            return new ReadModelStats(config.isEnabled(), false, false, 0, 0, 0, null, events.get(), 0);
+        }
+        return new ReadModelStats(config.isEnabled(), current.isReady(), isServing(),
+                current.count(ReadModelStore.RECETA), current.count(ReadModelStore.VACUNA),
+                current.getBlockNumber(), current.getTransactionId().orElse(null), events.get(),
+                current.getLines());
+    }
+
+    private void run() {
+        long backoff = 1000;
+        while (running) {
+            try {
+                if (store == null) {
+                    store = ReadModelStore.open(Paths.get(config.getDirectory()), config.getCompactMinLines());
+                }
+                try (CloseableIterator<ChaincodeEvent> current = openEvents()) {
+                    iterator = current;
+                    backoff = 1000;
+                    while (running && current.hasNext()) {
+                        onEvent(current.next());
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                logger.warn("Modelo de lectura sin eventos del chaincode, reintentando en {} ms", backoff, e);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    /**
+     * Retoma despues del ultimo evento aplicado; si no hay desde donde,
+     * se suscribe primero y arma el modelo leyendo el ledger completo. Los
+     * eventos que llegan mientras tanto quedan en el stream y se aplican
+     * despues: traen el estado completo del registro, asi que aplicar uno
+     * que el recorrido ya habia visto no cambia nada.
+     */
+    private CloseableIterator<ChaincodeEvent> openEvents() throws Exception {
+        Network network = connections.getNetwork();
+        if (store.canResume()) {
+            logger.info("Modelo de lectura: retomando eventos desde el bloque {}", store.getBlockNumber());
+            return network.newChaincodeEventsRequest(fabricConfig.getChaincodeName())
+                    .checkpoint(store)
+                    .build()
+                    .getEvents();
+        }
+        CloseableIterator<ChaincodeEvent> current = network.getChaincodeEvents(fabricConfig.getChaincodeName());
+        try {
+            store.reset();
+            long start = System.currentTimeMillis();
+            int recetas = snapshot("GetRecetasPaginadoCompleto", ReadModelStore.RECETA);
+            int vacunas = snapshot("GetVacunasPaginado", ReadModelStore.VACUNA);
+            store.markReady();
+            logger.info("Modelo de lectura armado desde el ledger: {} recetas y {} vacunas en {} ms",
+                    recetas, vacunas, System.currentTimeMillis() - start);
+            return current;
+        } catch (Exception e) {
+            current.close();
+            throw e;
+        }
+    }
+
+    private int snapshot(String function, String tipo) throws Exception {
+        int pageSize = Math.max(1, config.getSnapshotPageSize());
+        String bookmark = "";
+        int total = 0;
+        while (running) {
+            byte[] page = connections.evaluateTransaction(function, String.valueOf(pageSize), bookmark);
+            JsonNode root = objectMapper.readTree(page);
+            JsonNode componentes = root.path("componentes");
+            for (JsonNode doc : componentes) {
+                store.put(tipo, doc);
+                total++;
+            }
+            String next = root.path("bookmark").asText("");
+            if (componentes.size() < pageSize || next.isEmpty() || next.equals(bookmark)) {
+                break;
+            }
+            bookmark = next;
+        }
+        return total;
+    }
+
+    private void onEvent(ChaincodeEvent event) throws IOException {
+        String tipo = EVENT_TYPES.get(event.getEventName());
+        JsonNode doc = null;
+        if (tipo != null) {
+            try {
+                doc = objectMapper.readTree(event.getPayload());
+            } catch (IOException e) {
+                logger.warn("Payload ilegible en el evento {} de {}", event.getEventName(), event.getTransactionId(), e);
+            }
+            if (doc == null || !doc.isObject()) {
+                tipo = null;
+            }
+        }
+        // los eventos que no cambian el modelo igual avanzan el checkpoint
+        store.apply(tipo, doc, event.getBlockNumber(), event.getTransactionId());
+        events.incrementAndGet();
+    }
+}
@@ -0,0 +1,434 @@
+package com.code.hyperledger.readmodel;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hyperledger.fabric.client.Checkpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Registros del modelo de lectura guardados en disco como un log de lineas
+ * JSON al que se agrega cada cambio, con indices en memoria por ID y por
+ * tipo, paciente, estado e ID que se rearman al abrirlo. Las lineas de
+ * eventos llevan su bloque y transaccion: el checkpoint queda escrito en la
+ * misma linea que los datos que cubre, asi un corte nunca los desincroniza.
+ * Cuando el log crece mucho respecto de los registros vivos se reescribe.
+ */
+class ReadModelStore implements Checkpoint, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadModelStore.class);
+
+    static final String RECETA = "receta";
+    static final String VACUNA = "vacuna";
+
+    private static final char SEP = '\u0000';
+    private static final char MAX = '\uffff';
+    private static final String LOG = "readmodel.log";
+    // un modelo armado con una version anterior del snapshot se considera incompleto y se vuelve a armar
+    private static final int FORMATO = 2;
+    private static final String LISTO = "{\"listo\":true,\"formato\":" + FORMATO + "}\n";
+
+    private static class Registro {
+        final String id;
+        final String tipo;
+        final String indexKey;
+        final byte[] doc;
+
+        Registro(String id, String tipo, String indexKey, byte[] doc) {
+            this.id = id;
+            this.tipo = tipo;
+            this.indexKey = indexKey;
+            this.doc = doc;
+        }
+    }
+
+    private final Path log;
+    private final int compactMinLines;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Registro> registros = new HashMap<>();
+    private final NavigableMap<String, Registro> indice = new TreeMap<>();
+
+    private OutputStream out;
+    private FileChannel channel;
+    private long lines;
+    private long blockNumber;
+    private String transactionId;
+    private boolean ready;
+
+    private ReadModelStore(Path directory, int compactMinLines) {
+        this.log = directory.resolve(LOG);
+        this.compactMinLines = compactMinLines;
+    }
+
+    /**
+     * Abre el log (lo crea si no existe) y rearma los indices. Si la ultima
+     * linea quedo cortada por una caida se descarta.
+     */
+    static ReadModelStore open(Path directory, int compactMinLines) throws IOException {
+        Files.createDirectories(directory);
+        ReadModelStore store = new ReadModelStore(directory, compactMinLines);
+        store.load();
+        return store;
+    }
+
+    @Override
+    public long getBlockNumber() {
+        lock.readLock().lock();
+        try {
+            return blockNumber;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<String> getTransactionId() {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(transactionId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Completo y con un evento aplicado desde donde retomar.
+     */
+    boolean canResume() {
+        lock.readLock().lock();
+        try {
+            return ready && transactionId != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vacia el log y los indices para volver a armar el modelo desde cero.
+     */
+    void reset() throws IOException {
+        lock.writeLock().lock();
+        try {
+            closeLog();
+            registros.clear();
+            indice.clear();
+            blockNumber = 0;
+            transactionId = null;
+            ready = false;
+            lines = 0;
+            openLog(0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Registro leido del ledger al armar el modelo, sin checkpoint.
+     */
+    void put(String tipo, JsonNode doc) throws IOException {
+        lock.writeLock().lock();
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(doc);
+            index(tipo, doc, bytes);
+            writeLine(tipo, bytes, -1, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Estado completo de un registro que vino en un evento; tipo null solo
+     * avanza el checkpoint.
+     */
+    void apply(String tipo, JsonNode doc, long block, String txId) throws IOException {
+        lock.writeLock().lock();
+        try {
+            byte[] bytes = null;
+            if (tipo != null) {
+                bytes = objectMapper.writeValueAsBytes(doc);
+                index(tipo, doc, bytes);
+            }
+            writeLine(tipo, bytes, block, txId);
+            blockNumber = block;
+            transactionId = txId;
+            if (lines > compactMinLines && lines > 2L * registros.size()) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void markReady() throws IOException {
+        lock.writeLock().lock();
+        try {
+            out.write(LISTO.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            channel.force(false);
+            lines++;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Pagina con el mismo formato que las funciones paginadas del chaincode.
+     * Los registros van ordenados por ID y el bookmark es el ultimo ID
+     * devuelto; estados null no filtra por estado.
+     */
+    byte[] page(String tipo, String dni, Collection<String> estados, int pageSize, String bookmark) throws IOException {
+        String after = bookmark == null ? "" : bookmark;
+        String prefix = tipo + SEP + dni + SEP;
+        List<Registro> candidatos = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (estados == null) {
+                for (Registro registro : indice.subMap(prefix, true, prefix + MAX, false).values()) {
+                    if (registro.id.compareTo(after) > 0) {
+                        candidatos.add(registro);
+                    }
+                }
+            } else {
+                for (String estado : new TreeSet<>(estados)) {
+                    String from = prefix + estado + SEP;
+                    int count = 0;
+                    for (Registro registro : indice.subMap(from + after, false, from + MAX, false).values()) {
+                        candidatos.add(registro);
+                        if (++count == pageSize) {
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        candidatos.sort(Comparator.comparing(registro -> registro.id));
+        List<Registro> pagina = candidatos.subList(0, Math.min(pageSize, candidatos.size()));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream(256 + pagina.size() * 512);
+        json.write("{\"componentes\":[".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < pagina.size(); i++) {
+            if (i > 0) {
+                json.write(',');
+            }
+            json.write(pagina.get(i).doc);
+        }
+        String next = pagina.isEmpty() ? after : pagina.get(pagina.size() - 1).id;
+        json.write(("],\"bookmark\":" + objectMapper.writeValueAsString(next) + "}").getBytes(StandardCharsets.UTF_8));
+        return json.toByteArray();
+    }
+
+    long count(String tipo) {
+        lock.readLock().lock();
+        try {
+            return registros.values().stream().filter(registro -> registro.tipo.equals(tipo)).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long getLines() {
+        lock.readLock().lock();
+        try {
+            return lines;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closeLog();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() throws IOException {
+        long valid = 0;
+        if (Files.exists(log)) {
+            try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!loadLine(line)) {
+                        logger.warn("Linea ilegible en {} despues de {} bytes, se descarta el resto", log, valid);
+                        break;
+                    }
+                    valid += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    lines++;
+                }
+            }
+        }
+        openLog(valid);
+        logger.info("Modelo de lectura: {} registros, {} lineas, bloque {}{}", registros.size(), lines,
+                blockNumber, ready ? "" : " (incompleto)");
+    }
+
+    private boolean loadLine(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            return false;
+        }
+        if (node == null || !node.isObject()) {
+            return false;
+        }
+        if (node.has("listo")) {
+            ready = node.path("formato").asInt(1) >= FORMATO;
+            return true;
+        }
+        JsonNode doc = node.get("doc");
+        JsonNode tipo = node.get("tipo");
+        if (doc != null && tipo != null) {
+            try {
+                index(tipo.asText(), doc, objectMapper.writeValueAsBytes(doc));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        JsonNode tx = node.get("tx");
+        if (tx != null) {
+            blockNumber = node.path("bloque").asLong();
+            transactionId = tx.asText();
+        }
+        return true;
+    }
+
+    private void index(String tipo, JsonNode doc, byte[] bytes) {
+        String id = doc.path("id").asText("");
+        if (id.isEmpty()) {
+            return;
+        }
+        String indexKey = tipo + SEP + doc.path("patientDocumentNumber").asText("") + SEP
+                + doc.path("status").asText("") + SEP + id;
+        Registro registro = new Registro(id, tipo, indexKey, bytes);
+        Registro anterior = registros.put(id, registro);
+        if (anterior != null) {
+            indice.remove(anterior.indexKey);
+        }
+        indice.put(indexKey, registro);
+    }
+
+    private void writeLine(String tipo, byte[] doc, long block, String txId) throws IOException {
+        writeLine(out, tipo, doc, block, txId);
+        out.flush();
+        lines++;
+    }
+
+    private void writeLine(OutputStream target, String tipo, byte[] doc, long block, String txId) throws IOException {
+        StringBuilder head = new StringBuilder("{");
+        if (txId != null) {
+            head.append("\"bloque\":").append(block).append(",\"tx\":").append(objectMapper.writeValueAsString(txId));
+        }
+        if (tipo != null) {
+            head.append(txId != null ? "," : "").append("\"tipo\":").append(objectMapper.writeValueAsString(tipo))
+                    .append(",\"doc\":");
+            target.write(head.toString().getBytes(StandardCharsets.UTF_8));
+            target.write(doc);
+            target.write('}');
+        } else {
+            target.write(head.append('}').toString().getBytes(StandardCharsets.UTF_8));
+        }
+        target.write('\n');
+    }
+
+    /**
+     * Reescribe el log con un registro por ID, el checkpoint y la marca de
+     * completo, y lo reemplaza de forma atomica.
+     */
+    private void compact() throws IOException {
+        Path tmp = log.resolveSibling(LOG + ".tmp");
+        long written = 0;
+        try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream tmpOut = new BufferedOutputStream(Channels.newOutputStream(tmpChannel))) {
+            for (Registro registro : registros.values()) {
+                writeLine(tmpOut, registro.tipo, registro.doc, -1, null);
+                written++;
+            }
+            if (transactionId != null) {
+                writeLine(tmpOut, null, null, blockNumber, transactionId);
+                written++;
+            }
+            if (ready) {
+                tmpOut.write(LISTO.getBytes(StandardCharsets.UTF_8));
+                written++;
+            }
+            tmpOut.flush();
+            tmpChannel.force(true);
+        }
+        closeLog();
+        Files.move(tmp, log, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openLog(Files.size(log));
+        logger.info("Modelo de lectura compactado: {} lineas a {}", lines, written);
+        lines = written;
+    }
+
+    /**
+     * Abre el log para escribir a partir de size, descartando lo que siga.
+     */
+    private void openLog(long size) throws IOException {
+        channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > size) {
+            channel.truncate(size);
+        }
+        channel.position(size);
+        out = new BufferedOutputStream(Channels.newOutputStream(channel));
+    }
+
+    private void closeLog() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+            channel.force(false);
+            out.close();
+        } catch (IOException e) {
+            logger.warn("Error cerrando el log del modelo de lectura", e);
+        }
+        out = null;
+        channel = null;
+    }
+}
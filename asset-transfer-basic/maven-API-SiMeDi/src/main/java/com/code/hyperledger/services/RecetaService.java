@@ -1,12 +1,24 @@
 package com.code.hyperledger.services;
 
-import io.grpc.TlsChannelCredentials;
-import io.grpc.Grpc;
-import io.grpc.ManagedChannel;
-import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.Utils.JsonPassthrough;
+import com.code.hyperledger.Utils.NdjsonPages;
+import com.code.hyperledger.cache.LedgerCache;
+import com.code.hyperledger.fabric.BulkSubmitter;
+import com.code.hyperledger.fabric.CommitTracker;
+import com.code.hyperledger.fabric.FabricConnectionManager;
+import com.code.hyperledger.fabric.KeyedSubmitter;
+import com.code.hyperledger.fabric.MultiGetReader;
+import com.code.hyperledger.fabric.PagePrefetcher;
+import com.code.hyperledger.fabric.QueryCoalescer;
+import com.code.hyperledger.fabric.ReadBatcher;
+import com.code.hyperledger.readmodel.ReadModel;
+import com.code.hyperledger.models.EstadoTransaccion;
+import com.code.hyperledger.models.ResultadoCarga;
+import com.code.hyperledger.models.ResultadoPorIds;
 import com.code.hyperledger.models.Receta;
 import com.code.hyperledger.models.RecetaDto;
 //import com.code.hyperledger.models.ResultadoPaginado;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -14,97 +26,65 @@ import lombok.SneakyThrows;
 import com.code.hyperledger.models.ResultadoPaginado;
 
 import org.hyperledger.fabric.client.*;
-import org.hyperledger.fabric.client.identity.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
-import java.io.Reader;
-import java.nio.file.*;
-import java.security.InvalidKeyException;
-import java.security.cert.CertificateException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 import com.fasterxml.jackson.databind.JavaType;
 
 @Service
 public class RecetaService {
 
-    private final FabricConfigProperties config;
-    private Contract contract;
+    private static final Logger logger = LoggerFactory.getLogger(RecetaService.class);
+
+    private final FabricConnectionManager connections;
+    private final LedgerCache<Receta> recetaCache;
+    private final CommitTracker commitTracker;
+    private final BulkSubmitter bulkSubmitter;
+    private final QueryCoalescer queries;
+    private final ReadBatcher<Receta> recetaBatcher;
+    private final PagePrefetcher paginas;
+    private final ReadModel readModel;
+    private final KeyedSubmitter transiciones;
+    private final MultiGetReader multiGet;
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final JsonPassthrough recetasJson = JsonPassthrough.of(new ObjectMapper(), RecetaDto.class);
 
     @Autowired
-    public RecetaService(FabricConfigProperties config) {
-        this.config = config;
-    }
-
-    private Path getPath(String relativePath) {
-        return Paths.get(config.getCryptoPath()).resolve(relativePath);
-    }
-
-    private Path getFirstFilePath(Path dirPath) throws IOException {
-        try (var keyFiles = Files.list(dirPath)) {
-            return keyFiles.findFirst().orElseThrow();
-        }
+    public RecetaService(FabricConnectionManager connections, LedgerCache<Receta> recetaCache,
+            CommitTracker commitTracker, BulkSubmitter bulkSubmitter, QueryCoalescer queries,
+            ReadBatcher<Receta> recetaBatcher, PagePrefetcher paginas,
+            ReadModel readModel, KeyedSubmitter transiciones, MultiGetReader multiGet) {
+        this.connections = connections;
+        this.recetaCache = recetaCache;
+        this.commitTracker = commitTracker;
+        this.bulkSubmitter = bulkSubmitter;
+        this.queries = queries;
+        this.recetaBatcher = recetaBatcher;
+        this.paginas = paginas;
+        this.readModel = readModel;
+        this.transiciones = transiciones;
+        this.multiGet = multiGet;
     }
 
     @SneakyThrows
     @PostConstruct
     public void init() {
-        var channel = newGrpcConnection();
-
-        var gateway = Gateway.newInstance()
-                .identity(newIdentity())
-                .signer(newSigner())
-                .connection(channel)
-                .evaluateOptions(options -> options.withDeadlineAfter(5, TimeUnit.SECONDS))
-                .endorseOptions(options -> options.withDeadlineAfter(15, TimeUnit.SECONDS))
-                .submitOptions(options -> options.withDeadlineAfter(5, TimeUnit.SECONDS))
-                .commitStatusOptions(options -> options.withDeadlineAfter(1, TimeUnit.MINUTES))
-                .connect();
-
-        this.setContract(gateway);
         this.initLedger();
     }
 
-    private ManagedChannel newGrpcConnection() throws IOException {
-        var tlsCertPath = getPath(config.getTlsCertPath());
-        var credentials = TlsChannelCredentials.newBuilder()
-                .trustManager(tlsCertPath.toFile())
-                .build();
-
-        return Grpc.newChannelBuilder(config.getPeerEndpoint(), credentials)
-                .overrideAuthority(config.getOverrideAuth())
-                .build();
-    }
-
-    private Identity newIdentity() throws IOException, CertificateException {
-        Path certPath = getFirstFilePath(getPath(config.getCertPath()));
-        try (Reader certReader = Files.newBufferedReader(certPath)) {
-            var certificate = Identities.readX509Certificate(certReader);
-            return new X509Identity(config.getMspId(), certificate);
-        }
-    }
-
-    private Signer newSigner() throws IOException, InvalidKeyException {
-        Path keyPath = getFirstFilePath(getPath(config.getKeyPath()));
-        try (Reader keyReader = Files.newBufferedReader(keyPath)) {
-            var privateKey = Identities.readPrivateKey(keyReader);
-            return Signers.newPrivateKeySigner(privateKey);
-        }
-    }
-
-    private void setContract(final Gateway gateway) {
-        var network = gateway.getNetwork(config.getChannelName());
-        contract = network.getContract(config.getChaincodeName());
-    }
-
     // crea dos recetas default, borrar cuando no se necesite
     private void initLedger() throws EndorseException, SubmitException, CommitStatusException, CommitException {
-        contract.submitTransaction("InitLedger");
+        // reescribe siempre las mismas claves, asi que reenviarla ante un conflicto no cambia nada
+        transiciones.submit("InitLedger", "InitLedger");
     }
 
     public void cargarReceta(Receta receta)
@@ -112,53 +92,140 @@ public class RecetaService {
         try {
             ObjectMapper objectMapper = new ObjectMapper();
             String recetaJson = objectMapper.writeValueAsString(receta);
-            contract.submitTransaction("CreateReceta", recetaJson);
+            connections.submitTransaction("CreateReceta", recetaJson);
+            paginas.invalidarPaciente(receta.getPatientDocumentNumber());
         } catch (Exception e) {
-            System.err.println("Error en submitTransaction: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error en submitTransaction", e);
+        }
+    }
+
+    public EstadoTransaccion cargarRecetaAsync(Receta receta) throws EndorseException, SubmitException, IOException {
+        String recetaJson = new ObjectMapper().writeValueAsString(receta);
+        EstadoTransaccion estado = commitTracker.submit("CreateReceta", recetaJson);
+        paginas.invalidarPaciente(receta.getPatientDocumentNumber());
+        return estado;
+    }
+
+    /**
+     * Los elementos sin DNI de paciente se informan como ERROR sin enviarse al ledger.
+     */
+    public List<ResultadoCarga> cargarRecetas(List<Receta> recetas, boolean async) throws IOException {
+        if (recetas.size() > bulkSubmitter.getMaxItems()) {
+            throw new IllegalArgumentException("El lote supera el maximo de " + bulkSubmitter.getMaxItems() + " elementos");
         }
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<ResultadoCarga> resultados = new ArrayList<>();
+        List<BulkSubmitter.Item> items = new ArrayList<>();
+        for (int i = 0; i < recetas.size(); i++) {
+            Receta receta = recetas.get(i);
+            if (receta == null || receta.getPatientDocumentNumber() == null || receta.getPatientDocumentNumber().isEmpty()) {
+                resultados.add(new ResultadoCarga(i, receta == null ? null : receta.getId(), null,
+                        EstadoTransaccion.ERROR, null, "Falta el DNI del paciente"));
+                continue;
+            }
+            items.add(new BulkSubmitter.Item(i, receta.getId(), objectMapper.writeValueAsString(receta)));
+        }
+        resultados.addAll(bulkSubmitter.submitAll("CreateReceta", items, async));
+        for (Receta receta : recetas) {
+            if (receta != null && receta.getPatientDocumentNumber() != null) {
+                paginas.invalidarPaciente(receta.getPatientDocumentNumber());
+            }
+        }
+        resultados.sort(Comparator.comparingInt(ResultadoCarga::getIndice));
+        return resultados;
     }
 
     public Receta obtenerReceta(String recetaId) throws Exception {
-        var evaluateResult = contract.evaluateTransaction("ReadReceta", recetaId);
-        return new ObjectMapper().readValue(evaluateResult, Receta.class);
+        Receta cached = recetaCache.getIfPresent(recetaId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = recetaCache.generation();
+        Receta receta = recetaBatcher.load(recetaId);
+        if (receta == null) {
+            // GetMultipleRecetas omite las canceladas y las inexistentes: ReadReceta devuelve la receta o el error
+            var evaluateResult = connections.evaluateTransaction("ReadReceta", recetaId);
+            receta = new ObjectMapper().readValue(evaluateResult, Receta.class);
+        }
+        recetaCache.put(recetaId, receta, generation);
+        return receta;
     }
 
     public List<Receta> obtenerTodasLasRecetas() throws Exception {
-        var evaluateResult = contract.evaluateTransaction("GetAllRecetas");
+        var evaluateResult = queries.evaluate("GetAllRecetas");
         return new ObjectMapper().readValue(evaluateResult,
                 new ObjectMapper().getTypeFactory().constructCollectionType(List.class, Receta.class));
     }
 
-    public List<Receta> obtenerRecetasPorIds(List<String> recetaIds) throws Exception {
-        String idsJson = new ObjectMapper().writeValueAsString(recetaIds);
-        var evaluateResult = contract.evaluateTransaction("GetMultipleRecetas", idsJson);
-        return new ObjectMapper().readValue(evaluateResult,
-                new ObjectMapper().getTypeFactory().constructCollectionType(List.class, Receta.class));
+    public long escribirTodasLasRecetas(OutputStream out, int pageSize) throws Exception {
+        return NdjsonPages.stream(jsonFactory, out, pageSize, bookmark -> connections.evaluateTransaction(
+                "GetRecetasPaginado", String.valueOf(pageSize), bookmark));
+    }
+
+    /**
+     * La receta como la devuelve ReadReceta, validada contra RecetaDto. No usa
+     * el cache de recetas ni el batching.
+     */
+    public byte[] obtenerRecetaJson(String recetaId) throws GatewayException, IOException {
+        return recetasJson.registro(queries.evaluate("ReadReceta", recetaId));
+    }
+
+    public String estadoDeRecetaJson(byte[] json) throws IOException {
+        return recetasJson.campo(json, "status");
+    }
+
+    /**
+     * Las listas largas se leen en fragmentos en paralelo (MultiGetReader);
+     * los fragmentos que fallaron quedan en fallidos.
+     */
+    public ResultadoPorIds<Receta> obtenerRecetasPorIds(List<String> recetaIds) throws Exception {
+        ResultadoPorIds<byte[]> fragmentos = multiGet.evaluate("GetMultipleRecetas", recetaIds);
+        ObjectMapper mapper = new ObjectMapper();
+        JavaType tipo = mapper.getTypeFactory().constructCollectionType(List.class, Receta.class);
+        List<Receta> recetas = new ArrayList<>();
+        for (byte[] fragmento : fragmentos.getComponentes()) {
+            if (fragmento == null || fragmento.length == 0) {
+                continue;
+            }
+            List<Receta> parte = mapper.readValue(fragmento, tipo);
+            if (parte != null) {
+                recetas.addAll(parte);
+            }
+        }
+        return new ResultadoPorIds<>(recetas, fragmentos.getFallidos());
     }
 
+    /**
+     * Igual, con la lista JSON de cada fragmento validada por el passthrough.
+     */
+    public ResultadoPorIds<byte[]> obtenerRecetasPorIdsJson(List<String> recetaIds) throws GatewayException, IOException {
+        ResultadoPorIds<byte[]> fragmentos = multiGet.evaluate("GetMultipleRecetas", recetaIds);
+        List<byte[]> listas = new ArrayList<>(fragmentos.getComponentes().size());
+        for (byte[] fragmento : fragmentos.getComponentes()) {
+            listas.add(recetasJson.lista(fragmento));
+        }
+        return new ResultadoPorIds<>(listas, fragmentos.getFallidos());
+    }
+
+    // las transiciones leen y escriben la receta: van de a una por ID y se reenvian ante MVCC_READ_CONFLICT
     public void entregarReceta(String recetaId) throws Exception {
-        contract.submitTransaction("EntregarReceta", recetaId);
+        transiciones.submit(recetaId, "EntregarReceta", recetaId);
+        recetaCache.invalidate(recetaId);
     }
 
     public void firmarReceta(String recetaId, String signature) throws Exception {
-        contract.submitTransaction("FirmarReceta", recetaId, signature);
+        transiciones.submit(recetaId, "FirmarReceta", recetaId, signature);
+        recetaCache.invalidate(recetaId);
     }
 
     public void borrarReceta(String recetaId) throws Exception {
-        contract.submitTransaction("DeleteReceta", recetaId);
+        transiciones.submit(recetaId, "DeleteReceta", recetaId);
+        recetaCache.invalidate(recetaId);
     }
 
     public ResultadoPaginado<RecetaDto> obtenerRecetasPorDniYEstadoPaginado(
             String dni, List<String> estados, int pageSize, String bookmark) throws Exception {
-        String estadosJson = new ObjectMapper().writeValueAsString(estados);
-
-        byte[] result = contract.evaluateTransaction(
-                "GetRecetasPorDniYEstadosPaginado",
-                dni,
-                estadosJson,
-                String.valueOf(pageSize),
-                bookmark);
+        byte[] result = paginaRecetas(dni, estados, pageSize, bookmark);
         ObjectMapper mapper = new ObjectMapper();
         JavaType tipo = mapper.getTypeFactory()
                 .constructParametricType(ResultadoPaginado.class, RecetaDto.class);
@@ -166,4 +233,23 @@ public class RecetaService {
         return mapper.readValue(result, tipo);
     }
 
+    public byte[] obtenerRecetasPorDniYEstadoPaginadoJson(
+            String dni, List<String> estados, int pageSize, String bookmark) throws Exception {
+        return recetasJson.pagina(paginaRecetas(dni, estados, pageSize, bookmark));
+    }
+
+    private byte[] paginaRecetas(String dni, List<String> estados, int pageSize, String bookmark) throws Exception {
+        String estadosJson = new ObjectMapper().writeValueAsString(estados);
+
+        return readModel.isServing()
+                ? readModel.recetasPorDniYEstados(dni, estados, pageSize, bookmark)
+                : paginas.evaluate(
+                        "GetRecetasPorDniYEstadosPaginado",
+                        pageSize,
+                        bookmark,
+                        dni,
+                        estadosJson,
+                        String.valueOf(pageSize));
+    }
+
 }
@@ -1,144 +1,183 @@
 package com.code.hyperledger.services;
 
-import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.Utils.JsonPassthrough;
+import com.code.hyperledger.Utils.NdjsonPages;
+import com.code.hyperledger.cache.LedgerCache;
+import com.code.hyperledger.fabric.BulkSubmitter;
+import com.code.hyperledger.fabric.CommitTracker;
+import com.code.hyperledger.fabric.FabricConnectionManager;
+import com.code.hyperledger.fabric.MultiGetReader;
+import com.code.hyperledger.fabric.PagePrefetcher;
+import com.code.hyperledger.fabric.QueryCoalescer;
+import com.code.hyperledger.fabric.ReadBatcher;
+import com.code.hyperledger.readmodel.ReadModel;
+import com.code.hyperledger.models.EstadoTransaccion;
+import com.code.hyperledger.models.ResultadoCarga;
 import com.code.hyperledger.models.RecetaDto;
 import com.code.hyperledger.models.Vacuna;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JavaType;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import io.grpc.Grpc;
-import io.grpc.ManagedChannel;
-import io.grpc.TlsChannelCredentials;
-import lombok.SneakyThrows;
 import com.code.hyperledger.models.ResultadoPaginado;
+import com.code.hyperledger.models.ResultadoPorIds;
 
 import org.hyperledger.fabric.client.*;
-import org.hyperledger.fabric.client.identity.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
 import java.io.IOException;
-import java.nio.file.*;
-import java.security.InvalidKeyException;
-import java.security.cert.CertificateException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 @Service
 public class VacunaService {
 
-    private final FabricConfigProperties config;
-    private Contract contract;
+    private static final Logger logger = LoggerFactory.getLogger(VacunaService.class);
+
+    private final FabricConnectionManager connections;
+    private final LedgerCache<Vacuna> vacunaCache;
+    private final CommitTracker commitTracker;
+    private final BulkSubmitter bulkSubmitter;
+    private final QueryCoalescer queries;
+    private final ReadBatcher<Vacuna> vacunaBatcher;
+    private final PagePrefetcher paginas;
+    private final ReadModel readModel;
+    private final MultiGetReader multiGet;
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-
-    public VacunaService(FabricConfigProperties config) {
-        this.config = config;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final JsonPassthrough vacunasJson = JsonPassthrough.of(new ObjectMapper(), Vacuna.class);
+
+    public VacunaService(FabricConnectionManager connections, LedgerCache<Vacuna> vacunaCache,
+            CommitTracker commitTracker, BulkSubmitter bulkSubmitter, QueryCoalescer queries,
+            ReadBatcher<Vacuna> vacunaBatcher, PagePrefetcher paginas,
+            ReadModel readModel, MultiGetReader multiGet) {
+        this.connections = connections;
+        this.vacunaCache = vacunaCache;
+        this.commitTracker = commitTracker;
+        this.bulkSubmitter = bulkSubmitter;
+        this.queries = queries;
+        this.vacunaBatcher = vacunaBatcher;
+        this.paginas = paginas;
+        this.readModel = readModel;
+        this.multiGet = multiGet;
     }
 
-    private Path getFirstFilePath(Path dirPath) throws IOException {
-        try (var keyFiles = Files.list(dirPath)) {
-            return keyFiles.findFirst().orElseThrow();
-        }
-    }
+    // Todos los métodos siguientes permanecen idénticos...
 
-    @SneakyThrows
-    @PostConstruct
-    public void init() {
-        var channel = newGrpcConnection();
-
-        var builder = Gateway.newInstance()
-                .identity(newIdentity())
-                .signer(newSigner())
-                .connection(channel)
-                .evaluateOptions(options -> options.withDeadlineAfter(5, TimeUnit.SECONDS))
-                .endorseOptions(options -> options.withDeadlineAfter(15, TimeUnit.SECONDS))
-                .submitOptions(options -> options.withDeadlineAfter(5, TimeUnit.SECONDS))
-                .commitStatusOptions(options -> options.withDeadlineAfter(1, TimeUnit.MINUTES));
-
-        try (var gateway = builder.connect()) {
-            this.setContract(gateway);
+    public void cargarVacuna(Vacuna vacuna)
+            throws CommitStatusException, EndorseException, CommitException, SubmitException {
+        try {
+            ObjectMapper objectMapper = new ObjectMapper();
+            String vacunaJson = objectMapper.writeValueAsString(vacuna);
+
+            connections.submitTransaction("CreateVacuna", vacunaJson);
+            paginas.invalidarPaciente(vacuna.getPatientDocumentNumber());
+        } catch (Exception e) {
+            logger.error("Error en submitTransaction", e);
         }
     }
 
-    private ManagedChannel newGrpcConnection() throws IOException {
-        Path tlsPath = Paths.get(config.getCryptoPath(), config.getTlsCertPath());
-        var credentials = TlsChannelCredentials.newBuilder()
-                .trustManager(tlsPath.toFile())
-                .build();
-        return Grpc.newChannelBuilder(config.getPeerEndpoint(), credentials)
-                .overrideAuthority(config.getOverrideAuth())
-                .build();
+    public EstadoTransaccion cargarVacunaAsync(Vacuna vacuna) throws EndorseException, SubmitException, IOException {
+        String vacunaJson = new ObjectMapper().writeValueAsString(vacuna);
+        EstadoTransaccion estado = commitTracker.submit("CreateVacuna", vacunaJson);
+        paginas.invalidarPaciente(vacuna.getPatientDocumentNumber());
+        return estado;
     }
 
-    private Identity newIdentity() throws IOException, CertificateException {
-        Path certPath = Paths.get(config.getCryptoPath(), config.getCertPath());
-        try (var certReader = Files.newBufferedReader(getFirstFilePath(certPath))) {
-            var certificate = Identities.readX509Certificate(certReader);
-            return new X509Identity(config.getMspId(), certificate);
+    /**
+     * Los elementos sin DNI de paciente se informan como ERROR sin enviarse al ledger.
+     */
+    public List<ResultadoCarga> cargarVacunas(List<Vacuna> vacunas, boolean async) throws IOException {
+        if (vacunas.size() > bulkSubmitter.getMaxItems()) {
+            throw new IllegalArgumentException("El lote supera el maximo de " + bulkSubmitter.getMaxItems() + " elementos");
         }
-    }
-
-    private Signer newSigner() throws IOException, InvalidKeyException {
-        Path keyPath = Paths.get(config.getCryptoPath(), config.getKeyPath());
-        try (var keyReader = Files.newBufferedReader(getFirstFilePath(keyPath))) {
-            var privateKey = Identities.readPrivateKey(keyReader);
-            return Signers.newPrivateKeySigner(privateKey);
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<ResultadoCarga> resultados = new ArrayList<>();
+        List<BulkSubmitter.Item> items = new ArrayList<>();
+        for (int i = 0; i < vacunas.size(); i++) {
+            Vacuna vacuna = vacunas.get(i);
+            if (vacuna == null || vacuna.getPatientDocumentNumber() == null || vacuna.getPatientDocumentNumber().isEmpty()) {
+                resultados.add(new ResultadoCarga(i, vacuna == null ? null : vacuna.getId(), null,
+                        EstadoTransaccion.ERROR, null, "Falta el DNI del paciente"));
+                continue;
+            }
+            items.add(new BulkSubmitter.Item(i, vacuna.getId(), objectMapper.writeValueAsString(vacuna)));
         }
+        resultados.addAll(bulkSubmitter.submitAll("CreateVacuna", items, async));
+        for (Vacuna vacuna : vacunas) {
+            if (vacuna != null && vacuna.getPatientDocumentNumber() != null) {
+                paginas.invalidarPaciente(vacuna.getPatientDocumentNumber());
+            }
+        }
+        resultados.sort(Comparator.comparingInt(ResultadoCarga::getIndice));
+        return resultados;
     }
 
-    private void setContract(final Gateway gateway) {
-        var network = gateway.getNetwork(config.getChannelName());
-        contract = network.getContract(config.getChaincodeName());
-    }
-
-    // Todos los métodos siguientes permanecen idénticos...
-
-    public void cargarVacuna(Vacuna vacuna)
-            throws CommitStatusException, EndorseException, CommitException, SubmitException {
-        try {
+    public Vacuna obtenerVacuna(String vacunaId) throws GatewayException, IOException {
+        Vacuna cached = vacunaCache.getIfPresent(vacunaId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = vacunaCache.generation();
+        Vacuna vacuna = vacunaBatcher.load(vacunaId);
+        if (vacuna == null) {
+            // inexistente (o batching apagado): ReadVacuna devuelve el error del chaincode
+            var evaluateResult = connections.evaluateTransaction("ReadVacuna", vacunaId);
             ObjectMapper objectMapper = new ObjectMapper();
-            String vacunaJson = objectMapper.writeValueAsString(vacuna);
-
-            contract.submitTransaction("CreateVacuna", vacunaJson);
-        } catch (Exception e) {
-            System.err.println("Error en submitTransaction: " + e.getMessage());
-            e.printStackTrace();
+            vacuna = objectMapper.readValue(evaluateResult, Vacuna.class);
         }
+        vacunaCache.put(vacunaId, vacuna, generation);
+        return vacuna;
     }
 
-    public Vacuna obtenerVacuna(String vacunaId) throws GatewayException, IOException {
-        var evaluateResult = contract.evaluateTransaction("ReadVacuna", vacunaId);
-        ObjectMapper objectMapper = new ObjectMapper();
-        return objectMapper.readValue(evaluateResult, Vacuna.class);
+    /**
+     * La vacuna como la devuelve ReadVacuna, validada contra Vacuna. No usa el
+     * cache de vacunas ni el batching.
+     */
+    public byte[] obtenerVacunaJson(String vacunaId) throws GatewayException, IOException {
+        return vacunasJson.registro(queries.evaluate("ReadVacuna", vacunaId));
     }
 
     public List<Vacuna> obtenerTodasLasVacunas() throws GatewayException, IOException {
-        var evaluateResult = contract.evaluateTransaction("GetAllVacunas");
+        var evaluateResult = queries.evaluate("GetAllVacunas");
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.readValue(evaluateResult,
                 objectMapper.getTypeFactory().constructCollectionType(List.class, Vacuna.class));
     }
 
-    public List<Vacuna> obtenerVacunasPorIds(List<String> vacunaIds) throws GatewayException, IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        String idsJson = objectMapper.writeValueAsString(vacunaIds);
-        var evaluateResult = contract.evaluateTransaction("GetMultipleVacunas", idsJson);
+    public long escribirTodasLasVacunas(OutputStream out, int pageSize) throws Exception {
+        return NdjsonPages.stream(jsonFactory, out, pageSize, bookmark -> connections.evaluateTransaction(
+                "GetVacunasPaginado", String.valueOf(pageSize), bookmark));
+    }
 
-        if (evaluateResult == null || evaluateResult.length == 0) {
-            return new ArrayList<>();
+    /**
+     * Las listas largas se leen en fragmentos en paralelo (MultiGetReader);
+     * los fragmentos que fallaron quedan en fallidos.
+     */
+    public ResultadoPorIds<Vacuna> obtenerVacunasPorIds(List<String> vacunaIds) throws GatewayException, IOException {
+        ResultadoPorIds<byte[]> fragmentos = multiGet.evaluate("GetMultipleVacunas", vacunaIds);
+        ObjectMapper objectMapper = new ObjectMapper();
+        JavaType tipo = objectMapper.getTypeFactory().constructCollectionType(List.class, Vacuna.class);
+        List<Vacuna> vacunas = new ArrayList<>();
+        for (byte[] fragmento : fragmentos.getComponentes()) {
+            if (fragmento == null || fragmento.length == 0) {
+                continue;
+            }
+            List<Vacuna> parte = objectMapper.readValue(fragmento, tipo);
+            if (parte != null) {
+                vacunas.addAll(parte);
+            }
         }
-
-        return objectMapper.readValue(evaluateResult,
-                objectMapper.getTypeFactory().constructCollectionType(List.class, Vacuna.class));
+        return new ResultadoPorIds<>(vacunas, fragmentos.getFallidos());
     }
 
     public ResultadoPaginado<Vacuna> obtenerVacunasPorDniPaginado(String dni, int pageSize, String bookmark) throws GatewayException, IOException {
-        ObjectMapper objectMapper = new ObjectMapper();
-        byte[] result;
-
-        result = contract.evaluateTransaction("GetVacunasPorDniPaginado", dni, pageSize > 0 ? String.valueOf(pageSize) : "10", bookmark != null ? bookmark : "");
+        byte[] result = paginaVacunas(dni, pageSize, bookmark);
 
         ObjectMapper mapper = new ObjectMapper();
         JavaType tipo = mapper.getTypeFactory()
@@ -146,4 +185,16 @@ public class VacunaService {
 
         return mapper.readValue(result, tipo);
     }
+
+    public byte[] obtenerVacunasPorDniPaginadoJson(String dni, int pageSize, String bookmark) throws GatewayException, IOException {
+        return vacunasJson.pagina(paginaVacunas(dni, pageSize, bookmark));
+    }
+
+    private byte[] paginaVacunas(String dni, int pageSize, String bookmark) throws GatewayException, IOException {
+        int size = pageSize > 0 ? pageSize : 10;
+        if (readModel.isServing()) {
+            return readModel.vacunasPorDni(dni, size, bookmark);
+        }
+        return paginas.evaluate("GetVacunasPorDniPaginado", size, bookmark != null ? bookmark : "", dni, String.valueOf(size));
+    }
 }
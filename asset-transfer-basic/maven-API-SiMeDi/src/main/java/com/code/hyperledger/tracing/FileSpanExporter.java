@@ -0,0 +1,104 @@
+package com.code.hyperledger.tracing;
+
+import com.code.hyperledger.models.TraceSpan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrega los spans a un archivo NDJSON (un span por linea) para analizarlos
+ * fuera de linea. Escribe un hilo propio; si el disco no da abasto y la
+ * cola se llena los spans se descartan en lugar de frenar los requests.
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final BlockingQueue<TraceSpan> queue;
+    private final BufferedWriter writer;
+    private final ObjectMapper objectMapper;
+    private final Thread thread;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+
+    public FileSpanExporter(Path path, int queueCapacity, ObjectMapper objectMapper) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        this.objectMapper = objectMapper;
+        this.thread = new Thread(this::drain, "trace-file-exporter");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        logger.info("Trazas: spans en {}", path.toAbsolutePath());
+    }
+
+    @Override
+    public void export(TraceSpan span) {
+        if (!queue.offer(span) && dropped.getAndIncrement() % 1000 == 0) {
+            logger.warn("Cola de spans llena, {} descartados hasta ahora", dropped.get());
+        }
+    }
+
+    public void close() {
+        // sin interrumpir: el canal del archivo se cerraria a mitad de una escritura
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (running) {
+                TraceSpan span;
+                try {
+                    span = queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (span == null) {
+                    continue;
+                }
+                write(span);
+                // se junta lo que haya en la cola y se baja al disco una vez
+                while ((span = queue.poll()) != null) {
+                    write(span);
+                }
+                writer.flush();
+            }
+            TraceSpan span;
+            while ((span = queue.poll()) != null) {
+                write(span);
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudieron escribir los spans, se deja de exportar al archivo", e);
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.warn("Error cerrando el archivo de spans", e);
+            }
+        }
+    }
+
+    private void write(TraceSpan span) throws IOException {
+        writer.write(objectMapper.writeValueAsString(span));
+        writer.newLine();
+    }
+}
@@ -0,0 +1,69 @@
+package com.code.hyperledger.tracing;
+
+import com.code.hyperledger.models.TraceSpan;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Los ultimos maxSpans spans en un buffer circular, para consultarlos en
+ * /fabric/traces sin infraestructura aparte. Los mas viejos se pisan.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final AtomicReferenceArray<TraceSpan> spans;
+    private final AtomicLong written = new AtomicLong();
+
+    public InMemorySpanExporter(int maxSpans) {
+        this.spans = new AtomicReferenceArray<>(Math.max(1, maxSpans));
+    }
+
+    @Override
+    public void export(TraceSpan span) {
+        spans.set((int) (written.getAndIncrement() % spans.length()), span);
+    }
+
+    /**
+     * Los spans de una traza, de las trazas donde aparece una transaccion de
+     * Fabric, o sin filtros los ultimos spans raiz. Ordenados por inicio.
+     */
+    public List<TraceSpan> buscar(String traceId, String txId, int limit) {
+        List<TraceSpan> all = snapshot();
+        Set<String> traces = new HashSet<>();
+        if (traceId != null) {
+            traces.add(traceId);
+        }
+        if (txId != null) {
+            for (TraceSpan span : all) {
+                if (txId.equals(span.getAtributos().get(Tracer.TX_ID))) {
+                    traces.add(span.getTraceId());
+                }
+            }
+        }
+        List<TraceSpan> result = new ArrayList<>();
+        boolean filtered = traceId != null || txId != null;
+        for (TraceSpan span : all) {
+            if (filtered ? traces.contains(span.getTraceId()) : span.getParentId() == null) {
+                result.add(span);
+            }
+        }
+        result.sort(Comparator.comparing(TraceSpan::getInicio));
+        return result.size() <= limit ? result : result.subList(result.size() - limit, result.size());
+    }
+
+    private List<TraceSpan> snapshot() {
+        List<TraceSpan> all = new ArrayList<>(spans.length());
+        for (int i = 0; i < spans.length(); i++) {
+            TraceSpan span = spans.get(i);
+            if (span != null) {
+                all.add(span);
+            }
+        }
+        return all;
+    }
+}
@@ -0,0 +1,121 @@
+package com.code.hyperledger.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Un tramo de trabajo dentro de una traza. Los requests que no se muestrean
+ * reciben {@link #NOOP}, que no guarda nada, asi que etiquetar un span no
+ * cuesta nada fuera de la muestra.
+ */
+public final class Span implements AutoCloseable {
+
+    public static final Span NOOP = new Span(null, null, null, null, null);
+
+    private final Tracer tracer;
+    private final String traceId;
+    private final String spanId;
+    private final String parentId;
+    private volatile String name;
+    private final long startMillis;
+    private final long startNanos;
+    private final Map<String, String> attributes;
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private volatile String error;
+
+    Span(Tracer tracer, String traceId, String spanId, String parentId, String name) {
+        this.tracer = tracer;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.startMillis = tracer == null ? 0 : System.currentTimeMillis();
+        this.startNanos = tracer == null ? 0 : System.nanoTime();
+        this.attributes = tracer == null ? Map.of() : new LinkedHashMap<>();
+    }
+
+    public boolean isSampled() {
+        return tracer != null;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public Span tag(String key, Object value) {
+        if (tracer != null && value != null) {
+            synchronized (attributes) {
+                attributes.put(key, value.toString());
+            }
+        }
+        return this;
+    }
+
+    public void error(Throwable e) {
+        if (tracer != null) {
+            error = e.getClass().getSimpleName() + (e.getMessage() == null ? "" : ": " + e.getMessage());
+        }
+    }
+
+    public void error(String message) {
+        if (tracer != null) {
+            error = message;
+        }
+    }
+
+    /**
+     * El nombre definitivo puede saberse recien al terminar (el patron de la ruta, por ejemplo).
+     */
+    public void rename(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Header traceparent (W3C) para continuar la traza en otro servicio.
+     */
+    public String traceparent() {
+        return tracer == null ? null : "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    public void end() {
+        if (tracer != null && ended.compareAndSet(false, true)) {
+            tracer.export(this);
+        }
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+
+    String getParentId() {
+        return parentId;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    long elapsedMicros() {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+
+    Map<String, String> attributes() {
+        synchronized (attributes) {
+            return new LinkedHashMap<>(attributes);
+        }
+    }
+
+    String getError() {
+        return error;
+    }
+}
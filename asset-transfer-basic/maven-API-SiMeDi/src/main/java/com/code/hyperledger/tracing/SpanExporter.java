@@ -0,0 +1,13 @@
+package com.code.hyperledger.tracing;
+
+import com.code.hyperledger.models.TraceSpan;
+
+/**
+ * Destino de los spans terminados. Cualquier bean que implemente esta
+ * interfaz recibe todos los spans muestreados; se llama desde el hilo que
+ * termina el span, asi que no debe bloquear.
+ */
+public interface SpanExporter {
+
+    void export(TraceSpan span);
+}
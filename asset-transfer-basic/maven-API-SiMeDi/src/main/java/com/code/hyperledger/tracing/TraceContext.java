@@ -0,0 +1,103 @@
+package com.code.hyperledger.tracing;
+
+import org.slf4j.MDC;
+
+import java.util.function.Supplier;
+
+/**
+ * Span en curso del hilo actual, del que cuelgan los spans que se abren en
+ * ese hilo. Igual que con {@link com.code.hyperledger.fabric.IdentityContext}
+ * los pools que ejecutan trabajo de un request lo pasan a sus hilos. Mientras
+ * hay un span muestreado en curso el MDC lleva traceId y spanId, asi los
+ * logs de SLF4J del request quedan asociados a la traza.
+ */
+public final class TraceContext {
+
+    public static final String TRACE_ID = "traceId";
+    public static final String SPAN_ID = "spanId";
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Devuelve el span anterior al cerrarse.
+     */
+    public static final class Scope implements AutoCloseable {
+        private static final Scope NONE = new Scope(null);
+
+        private final Span previous;
+
+        private Scope(Span previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (this != NONE) {
+                set(previous);
+            }
+        }
+    }
+
+    private TraceContext() {
+    }
+
+    /**
+     * El span en curso, o null si el hilo no esta trabajando para una traza muestreada.
+     */
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    public static Scope use(Span span) {
+        Span previous = CURRENT.get();
+        if (previous == null && (span == null || !span.isSampled())) {
+            // fuera de la muestra no hay nada que cambiar
+            return Scope.NONE;
+        }
+        Scope scope = new Scope(previous);
+        set(span);
+        return scope;
+    }
+
+    /**
+     * El trabajo corre como parte del span del hilo que lo crea, en el hilo que sea.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        Span span = CURRENT.get();
+        if (span == null) {
+            return work;
+        }
+        return () -> {
+            try (Scope scope = use(span)) {
+                return work.get();
+            }
+        };
+    }
+
+    /**
+     * Lo mismo para tareas sin resultado.
+     */
+    public static Runnable wrap(Runnable work) {
+        Span span = CURRENT.get();
+        if (span == null) {
+            return work;
+        }
+        return () -> {
+            try (Scope scope = use(span)) {
+                work.run();
+            }
+        };
+    }
+
+    private static void set(Span span) {
+        if (span == null || !span.isSampled()) {
+            CURRENT.remove();
+            MDC.remove(TRACE_ID);
+            MDC.remove(SPAN_ID);
+        } else {
+            CURRENT.set(span);
+            MDC.put(TRACE_ID, span.getTraceId());
+            MDC.put(SPAN_ID, span.getSpanId());
+        }
+    }
+}
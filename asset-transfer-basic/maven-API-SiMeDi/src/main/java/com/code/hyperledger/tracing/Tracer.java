@@ -0,0 +1,138 @@
+package com.code.hyperledger.tracing;
+
+import com.code.hyperledger.configs.TracingConfigProperties;
+import com.code.hyperledger.models.TraceSpan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Abre los spans y se los pasa a los {@link SpanExporter} al terminar. La
+ * decision de muestreo se toma una vez por request (o la trae el header
+ * traceparent del que llama) y la heredan todos sus spans: fuera de la
+ * muestra los spans son {@link Span#NOOP} y no se mide ni se exporta nada.
+ */
+@Component
+public class Tracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(Tracer.class);
+
+    public static final String TX_ID = "fabric.txId";
+    public static final String FUNCTION = "fabric.function";
+
+    @FunctionalInterface
+    public interface Traced<T, E extends Exception> {
+        T call(Span span) throws E;
+    }
+
+    private final boolean enabled;
+    private final double sampleRate;
+    private final List<SpanExporter> exporters;
+
+    public Tracer(TracingConfigProperties config, ObjectProvider<SpanExporter> exporters) {
+        this.exporters = exporters.orderedStream().collect(Collectors.toList());
+        this.enabled = config.isEnabled() && !this.exporters.isEmpty();
+        this.sampleRate = config.getSampleRate();
+        if (enabled) {
+            logger.info("Trazas: muestreo {} con {}", sampleRate, this.exporters.stream()
+                    .map(exporter -> exporter.getClass().getSimpleName()).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Span raiz de un request. Si el que llama manda un traceparent valido se
+     * continua su traza con su decision de muestreo.
+     */
+    public Span startRequest(String name, String traceparent) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        if (traceparent != null && isValid(traceparent)) {
+            if ((Character.digit(traceparent.charAt(54), 16) & 1) == 0) {
+                return Span.NOOP;
+            }
+            return new Span(this, traceparent.substring(3, 35), newId(), traceparent.substring(36, 52), name);
+        }
+        if (ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return Span.NOOP;
+        }
+        return new Span(this, newId() + newId(), newId(), null, name);
+    }
+
+    /**
+     * Hijo del span en curso del hilo; sin uno muestreado, NOOP.
+     */
+    public Span startSpan(String name) {
+        return startSpan(name, TraceContext.current());
+    }
+
+    public Span startSpan(String name, Span parent) {
+        if (parent == null || !parent.isSampled()) {
+            return Span.NOOP;
+        }
+        return new Span(this, parent.getTraceId(), newId(), parent.getSpanId(), name);
+    }
+
+    /**
+     * Ejecuta la llamada dentro de un span hijo del actual, que queda como
+     * span en curso mientras dura y registra el error si la llamada falla.
+     */
+    public <T, E extends Exception> T inSpan(String name, Traced<T, E> call) throws E {
+        Span span = startSpan(name);
+        if (!span.isSampled()) {
+            return call.call(span);
+        }
+        try (TraceContext.Scope scope = TraceContext.use(span)) {
+            return call.call(span);
+        } catch (Exception e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    void export(Span span) {
+        TraceSpan data = new TraceSpan(span.getTraceId(), span.getSpanId(), span.getParentId(), span.getName(),
+                Instant.ofEpochMilli(span.getStartMillis()).toString(), span.elapsedMicros(), span.attributes(),
+                span.getError());
+        for (SpanExporter exporter : exporters) {
+            try {
+                exporter.export(data);
+            } catch (RuntimeException e) {
+                logger.warn("El exportador {} fallo con el span {}", exporter.getClass().getSimpleName(),
+                        span.getSpanId(), e);
+            }
+        }
+    }
+
+    // 00-<traceId 32 hex>-<spanId 16 hex>-<flags 2 hex>
+    private static boolean isValid(String traceparent) {
+        if (traceparent.length() < 55 || !traceparent.startsWith("00-") || traceparent.charAt(35) != '-'
+                || traceparent.charAt(52) != '-') {
+            return false;
+        }
+        for (int i = 3; i < 55; i++) {
+            if (i != 35 && i != 52 && Character.digit(traceparent.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return !traceparent.startsWith("00000000000000000000000000000000", 3)
+                && !traceparent.startsWith("0000000000000000", 36);
+    }
+
+    private static String newId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        String hex = Long.toHexString(id);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+}
@@ -0,0 +1,33 @@
+package com.code.hyperledger.tracing;
+
+import com.code.hyperledger.configs.TracingConfigProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Exportadores incluidos: en memoria (por defecto) y archivo NDJSON. Para
+ * mandar los spans a otro sistema alcanza con registrar otro bean
+ * {@link SpanExporter}.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tracing.memory", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public InMemorySpanExporter inMemorySpanExporter(TracingConfigProperties properties) {
+        return new InMemorySpanExporter(properties.getMemory().getMaxSpans());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "tracing.file", name = "enabled", havingValue = "true")
+    public FileSpanExporter fileSpanExporter(TracingConfigProperties properties, ObjectMapper objectMapper)
+            throws IOException {
+        TracingConfigProperties.File file = properties.getFile();
+        return new FileSpanExporter(Paths.get(file.getPath()), file.getQueueCapacity(), objectMapper);
+    }
+}
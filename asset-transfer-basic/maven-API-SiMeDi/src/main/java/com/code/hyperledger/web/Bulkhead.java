@@ -0,0 +1,106 @@
+package com.code.hyperledger.web;
+
+import com.code.hyperledger.configs.BulkheadConfigProperties;
+import com.code.hyperledger.fabric.IdentityContext;
+import com.code.hyperledger.models.BulkheadStats;
+import com.code.hyperledger.tracing.TraceContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pool de ejecucion propio para un tipo de trabajo (consultas o envios), con
+ * cola acotada. Cuando el pool y la cola estan llenos el request se rechaza en
+ * el acto en lugar de ocupar un hilo de Tomcat esperando. El trabajo corre
+ * con la identidad de Fabric y el span del request. Cada request tiene el
+ * timeout del bulkhead (o el que se pida); vencido, el cliente recibe 503 y el
+ * trabajo se saca de la cola o se interrumpe, asi no sigue ocupando un hilo
+ * ni termina enviando algo que el cliente ya dio por fallido.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final int rejectionStatus;
+    private final String retryAfter;
+    private final long timeoutMs;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public Bulkhead(String name, BulkheadConfigProperties.Spec spec) {
+        this.name = name;
+        this.queueCapacity = spec.getQueueCapacity();
+        this.rejectionStatus = spec.getRejectionStatus();
+        this.retryAfter = String.valueOf(spec.getRetryAfterSeconds());
+        this.timeoutMs = spec.getTimeoutMs();
+        int threads = Math.max(1, spec.getThreads());
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public <T> DeferredResult<ResponseEntity<T>> execute(Supplier<ResponseEntity<T>> work) {
+        return execute(timeoutMs, work);
+    }
+
+    public <T> DeferredResult<ResponseEntity<T>> execute(long timeoutMs, Supplier<ResponseEntity<T>> work) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(timeoutMs > 0 ? timeoutMs : null);
+        Supplier<ResponseEntity<T>> task = TraceContext.propagate(IdentityContext.propagate(work));
+        Future<?> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    result.setResult(task.get());
+                } catch (RuntimeException | Error e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return completed(ResponseEntity.status(rejectionStatus)
+                    .header(HttpHeaders.RETRY_AFTER, retryAfter)
+                    .<T>build());
+        }
+        // sin resultado Spring responde 503; el trabajo no sigue para nadie
+        result.onTimeout(() -> {
+            timedOut.incrementAndGet();
+            future.cancel(true);
+        });
+        return result;
+    }
+
+    /**
+     * Respuesta ya resuelta, sin pasar por el pool (validaciones, rechazos).
+     */
+    public static <T> DeferredResult<ResponseEntity<T>> completed(ResponseEntity<T> response) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>();
+        result.setResult(response);
+        return result;
+    }
+
+    public BulkheadStats getStats() {
+        return new BulkheadStats(name, executor.getMaximumPoolSize(), executor.getActiveCount(),
+                executor.getQueue().size(), queueCapacity, executor.getCompletedTaskCount(), rejected.get(), timedOut.get());
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,23 @@
+package com.code.hyperledger.web;
+
+import com.code.hyperledger.configs.BulkheadConfigProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Consultas y envios usan pools separados: una rafaga de submits lentos
+ * (endorse 15s, commit hasta 1 min) no puede dejar sin hilos a las lecturas.
+ */
+@Configuration
+public class BulkheadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead queryBulkhead(BulkheadConfigProperties properties) {
+        return new Bulkhead("query", properties.getQuery());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public Bulkhead submitBulkhead(BulkheadConfigProperties properties) {
+        return new Bulkhead("submit", properties.getSubmit());
+    }
+}
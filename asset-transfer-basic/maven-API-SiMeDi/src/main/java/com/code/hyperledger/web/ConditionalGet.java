@@ -0,0 +1,124 @@
+package com.code.hyperledger.web;
+
+import com.code.hyperledger.Utils.Hashing;
+import com.code.hyperledger.cache.LedgerCache;
+import com.code.hyperledger.configs.CacheConfigProperties;
+import com.code.hyperledger.models.CacheStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Predicate;
+
+/**
+ * Respuestas con ETag fuerte (SHA-256 del JSON que se devuelve) y manejo de
+ * If-None-Match: si el cliente ya tiene esa version se contesta 304 sin
+ * cuerpo. El ETag de los registros que ya no cambian se guarda por ID, asi
+ * el 304 sale sin leer el ledger; el resto se lee (o sale del cache de
+ * registros) y se compara el hash. Las transiciones y los eventos del
+ * chaincode invalidan el ETag guardado igual que el cache de registros.
+ */
+@Component
+public class ConditionalGet {
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Serializer<T> {
+        byte[] toJson(T body) throws Exception;
+    }
+
+    private final LedgerCache<String> etags;
+    private final ObjectMapper objectMapper;
+
+    public ConditionalGet(CacheConfigProperties properties, ObjectMapper objectMapper) {
+        this.etags = new LedgerCache<>("etags", properties.getEtags());
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param definitivo si el registro ya no puede cambiar y su ETag se puede guardar
+     */
+    public <T> ResponseEntity<T> responder(String tipo, String id, String ifNoneMatch, Loader<T> loader,
+            Predicate<T> definitivo) throws Exception {
+        // mismo ObjectMapper que usa Spring para escribir la respuesta: el hash es el del cuerpo enviado
+        return responder(tipo, id, ifNoneMatch, loader, definitivo, objectMapper::writeValueAsBytes, null);
+    }
+
+    /**
+     * Igual, con el JSON ya armado (passthrough): el ETag es el hash de esos bytes.
+     */
+    public ResponseEntity<byte[]> responderJson(String tipo, String id, String ifNoneMatch, Loader<byte[]> loader,
+            Predicate<byte[]> definitivo) throws Exception {
+        return responder(tipo, id, ifNoneMatch, loader, definitivo, json -> json, MediaType.APPLICATION_JSON);
+    }
+
+    private <T> ResponseEntity<T> responder(String tipo, String id, String ifNoneMatch, Loader<T> loader,
+            Predicate<T> definitivo, Serializer<T> serializer, MediaType contentType) throws Exception {
+        String key = key(tipo, id);
+        if (ifNoneMatch != null) {
+            String etag = etags.getIfPresent(key);
+            if (etag != null && matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        long generation = etags.generation();
+        T body = loader.load();
+        String etag = '"' + Hashing.sha256(serializer.toJson(body)) + '"';
+        if (body != null && definitivo.test(body)) {
+            etags.put(key, etag, generation);
+        }
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(etag);
+        if (contentType != null) {
+            ok.contentType(contentType);
+        }
+        return ok.body(body);
+    }
+
+    public void invalidar(String tipo, String id) {
+        if (id == null) {
+            etags.invalidateIf(key -> key.startsWith(tipo + ':'));
+        } else {
+            etags.invalidate(key(tipo, id));
+        }
+    }
+
+    public void invalidateAll() {
+        etags.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return etags.getStats();
+    }
+
+    /**
+     * If-None-Match compara en forma debil (RFC 7232): se ignora el prefijo W/.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String key(String tipo, String id) {
+        return tipo + ':' + id;
+    }
+}
@@ -0,0 +1,39 @@
+package com.code.hyperledger.web;
+
+import com.code.hyperledger.models.FragmentoFallido;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Respuesta de /todas cuando fallaron algunos fragmentos de la lectura por
+ * IDs: el cuerpo sigue siendo el arreglo con lo que se pudo leer (200) y los
+ * fragmentos fallidos van en el header X-Fragmentos-Fallidos, uno por rango
+ * de posiciones de la lista pedida con el codigo gRPC si lo hubo, p. ej.
+ * "200-400 UNAVAILABLE, 600-800".
+ */
+public final class FragmentosFallidos {
+
+    public static final String HEADER = "X-Fragmentos-Fallidos";
+
+    private FragmentosFallidos() {
+    }
+
+    public static ResponseEntity.BodyBuilder ok(List<FragmentoFallido> fallidos) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (!fallidos.isEmpty()) {
+            ok.header(HEADER, header(fallidos));
+        }
+        return ok;
+    }
+
+    static String header(List<FragmentoFallido> fallidos) {
+        StringJoiner header = new StringJoiner(", ");
+        for (FragmentoFallido fallido : fallidos) {
+            String rango = fallido.getDesde() + "-" + fallido.getHasta();
+            header.add(fallido.getCodigo() == null ? rango : rango + " " + fallido.getCodigo());
+        }
+        return header.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.code.hyperledger.web;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.fabric.IdentityContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.Principal;
+import java.security.cert.X509Certificate;
+
+/**
+ * Toma del header X-Fabric-Identity la identidad (de fabric.identities) con la
+ * que se firman las transacciones del request. Sin header se usa la identidad
+ * por defecto. Elegir identidad esta deshabilitado salvo con
+ * fabric.identitySelection.enabled, y aun asi solo se acepta si el que llama
+ * esta autorizado para esa identidad: una de sus apiKeys, o su usuario
+ * autenticado o el sujeto de su certificado de cliente TLS en principals.
+ * Una identidad que no esta configurada es 400; sin autorizacion, 403.
+ */
+@Component
+public class IdentityFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Fabric-Identity";
+
+    private static final String CLIENT_CERTIFICATES = "javax.servlet.request.X509Certificate";
+
+    private final FabricConfigProperties config;
+
+    public IdentityFilter(FabricConfigProperties config) {
+        this.config = config;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String identity = request.getHeader(HEADER);
+        if (identity == null || identity.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!config.getIdentitySelection().isEnabled()) {
+            response.sendError(HttpStatus.FORBIDDEN.value(), "La eleccion de identidad de Fabric esta deshabilitada");
+            return;
+        }
+        FabricConfigProperties.Identity allowed = config.getIdentities().get(identity);
+        if (allowed == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Identidad de Fabric no configurada: " + identity);
+            return;
+        }
+        if (!isAuthorized(request, allowed)) {
+            response.sendError(HttpStatus.FORBIDDEN.value(), "Sin autorizacion para la identidad " + identity);
+            return;
+        }
+        try (IdentityContext.Scope scope = IdentityContext.use(identity)) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private boolean isAuthorized(HttpServletRequest request, FabricConfigProperties.Identity allowed) {
+        String apiKey = request.getHeader(config.getIdentitySelection().getApiKeyHeader());
+        if (apiKey != null && !apiKey.isEmpty()) {
+            byte[] presented = apiKey.getBytes(StandardCharsets.UTF_8);
+            for (String key : allowed.getApiKeys()) {
+                // comparacion en tiempo constante: el tiempo de respuesta no delata prefijos de la clave
+                if (MessageDigest.isEqual(presented, key.getBytes(StandardCharsets.UTF_8))) {
+                    return true;
+                }
+            }
+        }
+        Principal user = request.getUserPrincipal();
+        if (user != null && allowed.getPrincipals().contains(user.getName())) {
+            return true;
+        }
+        Object certificates = request.getAttribute(CLIENT_CERTIFICATES);
+        if (certificates instanceof X509Certificate[] && ((X509Certificate[]) certificates).length > 0) {
+            String subject = ((X509Certificate[]) certificates)[0].getSubjectX500Principal().getName();
+            return allowed.getPrincipals().contains(subject);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package com.code.hyperledger.web;
+
+import com.code.hyperledger.configs.QuotaConfigProperties;
+import com.code.hyperledger.models.QuotaStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cuota por cliente para un tipo de request. Los baldes estan en un cache de
+ * Caffeine (lecturas sin locks, escrituras por segmento), asi que clientes
+ * distintos no compiten entre si.
+ */
+public class Quota {
+
+    private final String name;
+    private final QuotaConfigProperties.Spec spec;
+    private final Cache<String, TokenBucket> buckets;
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    public Quota(String name, QuotaConfigProperties.Spec spec, QuotaConfigProperties config) {
+        this.name = name;
+        this.spec = spec;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaxClients())
+                .expireAfterAccess(Duration.ofMinutes(config.getIdleMinutes()))
+                .build();
+    }
+
+    /**
+     * 0 si el request entra en la cuota del cliente; si no, nanosegundos
+     * hasta que entraria.
+     */
+    public long tryAcquire(String client) {
+        if (spec.getRatePerSecond() <= 0) {
+            // sin limite para este tipo de request
+            return 0;
+        }
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(client, key -> new TokenBucket(spec.getRatePerSecond(), spec.getBurst(), now));
+        long wait = bucket.tryAcquire(now);
+        if (wait == 0) {
+            admitted.increment();
+        } else {
+            throttled.increment();
+        }
+        return wait;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public QuotaStats getStats() {
+        return new QuotaStats(name, spec.getRatePerSecond(), spec.getBurst(), buckets.estimatedSize(),
+                admitted.sum(), throttled.sum());
+    }
+}
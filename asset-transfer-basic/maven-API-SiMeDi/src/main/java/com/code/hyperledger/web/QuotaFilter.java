@@ -0,0 +1,107 @@
+package com.code.hyperledger.web;
+
+import com.code.hyperledger.configs.QuotaConfigProperties;
+import com.code.hyperledger.models.QuotaStats;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuotas por cliente: una para
+ * los envios de transacciones y otra, mas amplia, para las consultas de
+ * /recetas y /vacunas. Un request fuera de cuota se rechaza con 429 y
+ * Retry-After antes de llegar al controller. Un lote cuenta como un request.
+ * El cliente es la API key del header configurado solo si es una de las
+ * claves dadas de alta, o el usuario autenticado; si no, la IP de origen.
+ * Asi no alcanza con inventar una clave por request para esquivar la cuota
+ * ni para desplazar del cache los baldes de los clientes reales. El tipo de
+ * request sale del path ya normalizado (sin ;jsessionid, barras dobles ni
+ * barra final), el mismo que resuelve el controller.
+ */
+@Component
+public class QuotaFilter extends OncePerRequestFilter {
+
+    private static final Set<String> SUBMIT_PATHS = Set.of("/recetas/crear", "/recetas/crear/lote",
+            "/recetas/firmar", "/recetas/entregar", "/recetas/borrar", "/vacunas/crear", "/vacunas/crear/lote");
+
+    private static final UrlPathHelper PATHS = new UrlPathHelper();
+
+    private final QuotaConfigProperties config;
+    private final Set<String> apiKeys;
+    private final Quota submit;
+    private final Quota query;
+
+    public QuotaFilter(QuotaConfigProperties config) {
+        this.config = config;
+        this.apiKeys = Set.copyOf(config.getApiKeys());
+        this.submit = new Quota("submit", config.getSubmit(), config);
+        this.query = new Quota("query", config.getQuery(), config);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = lookupPath(request);
+        Quota quota;
+        if (SUBMIT_PATHS.contains(path)) {
+            quota = submit;
+        } else if (path.startsWith("/recetas/") || path.startsWith("/vacunas/")) {
+            quota = query;
+        } else {
+            chain.doFilter(request, response);
+            return;
+        }
+        long wait = quota.tryAcquire(client(request));
+        if (wait > 0) {
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Cuota de " + quota.getName() + " excedida");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    public List<QuotaStats> getStats() {
+        return List.of(query.getStats(), submit.getStats());
+    }
+
+    /**
+     * Spring MVC acepta la barra final, asi que /recetas/crear/ tambien es un envio.
+     */
+    private static String lookupPath(HttpServletRequest request) {
+        String path = PATHS.getLookupPathForRequest(request);
+        while (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    private String client(HttpServletRequest request) {
+        String key = request.getHeader(config.getClientHeader());
+        if (key != null && apiKeys.contains(key)) {
+            return "key:" + key;
+        }
+        Principal user = request.getUserPrincipal();
+        if (user != null) {
+            return "user:" + user.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
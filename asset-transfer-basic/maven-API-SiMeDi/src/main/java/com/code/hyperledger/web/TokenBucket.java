@@ -0,0 +1,39 @@
+package com.code.hyperledger.web;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens de un cliente, sin locks: en lugar de contar tokens guarda
+ * el instante en que el balde vuelve a estar lleno (GCRA) y lo avanza con
+ * compareAndSet. Admitir un request es correr ese instante un intervalo; se
+ * rechaza si quedaria a mas de burst intervalos en el futuro.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong full;
+
+    TokenBucket(double ratePerSecond, int burst, long now) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.toleranceNanos = intervalNanos * Math.max(1, burst);
+        this.full = new AtomicLong(now);
+    }
+
+    /**
+     * 0 si se admite; si no, cuantos nanosegundos faltan para que haya un token.
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = full.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (full.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.code.hyperledger.web;
+
+import com.code.hyperledger.configs.TracingConfigProperties;
+import com.code.hyperledger.tracing.Span;
+import com.code.hyperledger.tracing.TraceContext;
+import com.code.hyperledger.tracing.Tracer;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Span raiz de cada request muestreado. Queda como span en curso mientras se
+ * atiende, asi los bulkheads y los pools lo pasan al trabajo que lanzan y las
+ * llamadas a Fabric cuelgan de el. En los endpoints asincronos el span se
+ * cierra cuando se completa la respuesta. El traceId va en el header de la
+ * respuesta para buscar la traza en /fabric/traces.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class TracingFilter extends OncePerRequestFilter {
+
+    private static final String TRACEPARENT = "traceparent";
+
+    private final Tracer tracer;
+    private final String responseHeader;
+
+    public TracingFilter(Tracer tracer, TracingConfigProperties properties) {
+        this.tracer = tracer;
+        this.responseHeader = properties.getResponseHeader();
+    }
+
+    /**
+     * Los endpoints de operacion (estado, metricas, las propias trazas) no se trazan.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/fabric/") || path.startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Span span = tracer.startRequest(request.getMethod() + " " + request.getRequestURI(),
+                request.getHeader(TRACEPARENT));
+        if (!span.isSampled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        span.tag("http.method", request.getMethod());
+        span.tag("http.url", request.getRequestURI());
+        span.tag("fabric.identity", request.getHeader(IdentityFilter.HEADER));
+        response.setHeader(responseHeader, span.getTraceId());
+        boolean async = false;
+        try (TraceContext.Scope scope = TraceContext.use(span)) {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        end(span, request, response);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        span.error("timeout");
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        if (event.getThrowable() != null) {
+                            span.error(event.getThrowable());
+                        }
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            if (!async) {
+                end(span, request, response);
+            }
+        }
+    }
+
+    private static void end(Span span, HttpServletRequest request, HttpServletResponse response) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            span.rename(request.getMethod() + " " + pattern);
+        }
+        span.tag("http.status", response.getStatus());
+        span.end();
+    }
+}
@@ -0,0 +1,284 @@
+package com.code.hyperledger.events;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import com.code.hyperledger.fabric.FabricConnectionManager;
+import com.code.hyperledger.fabric.FabricMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hyperledger.fabric.client.ChaincodeEvent;
+import org.hyperledger.fabric.client.ChaincodeEventsRequest;
+import org.hyperledger.fabric.client.CloseableIterator;
+import org.hyperledger.fabric.client.Network;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LedgerEventConsumerTests {
+
+    /**
+     * Stream de eventos que el test alimenta; termina al cerrarlo.
+     */
+    private static class Eventos implements CloseableIterator<ChaincodeEvent> {
+        final BlockingQueue<ChaincodeEvent> queue = new LinkedBlockingQueue<>();
+        volatile boolean closed;
+        private ChaincodeEvent next;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && !closed) {
+                    next = queue.poll(20, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return next != null;
+        }
+
+        @Override
+        public ChaincodeEvent next() {
+            hasNext();
+            ChaincodeEvent event = next;
+            next = null;
+            return event;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Handler que registra los intentos por transaccion; el test decide cuales fallan o esperan.
+     */
+    private static class Handler implements LedgerEventHandler {
+        final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> handled = new ConcurrentHashMap<>();
+        final Map<String, Integer> failuresBeforeSuccess = new ConcurrentHashMap<>();
+        final Map<String, CountDownLatch> blocked = new ConcurrentHashMap<>();
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        public Set<String> getEventNames() {
+            return Set.of();
+        }
+
+        @Override
+        public void handle(LedgerEvent event) throws Exception {
+            String tx = event.getTransactionId();
+            int attempt = attempts.computeIfAbsent(tx, k -> new AtomicInteger()).incrementAndGet();
+            CountDownLatch latch = blocked.get(tx);
+            if (latch != null) {
+                latch.await();
+            }
+            if (attempt <= failuresBeforeSuccess.getOrDefault(tx, 0)) {
+                throw new IllegalStateException("falla el handler con " + tx);
+            }
+            handled.computeIfAbsent(tx, k -> new AtomicInteger()).incrementAndGet();
+        }
+
+        int attempts(String tx) {
+            AtomicInteger count = attempts.get(tx);
+            return count == null ? 0 : count.get();
+        }
+
+        int handled(String tx) {
+            AtomicInteger count = handled.get(tx);
+            return count == null ? 0 : count.get();
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Handler handler = new Handler();
+    private final BlockingQueue<Eventos> connections = new LinkedBlockingQueue<>();
+    private Path directory;
+    private Path checkpoint;
+    private LedgerEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        directory = Files.createTempDirectory("events");
+        checkpoint = directory.resolve("checkpoint.json");
+
+        FabricConfigProperties config = new FabricConfigProperties();
+        config.setChaincodeName("basic");
+        FabricConfigProperties.Events events = config.getEvents();
+        events.setCheckpointFile(checkpoint.toString());
+        events.setLanes(4);
+        events.setLaneCapacity(100);
+        events.setCheckpointIntervalMs(10);
+        events.setHandlerMaxAttempts(2);
+        events.setHandlerBackoffMs(1);
+
+        // cada conexion (y cada reconexion desde el checkpoint) toma el siguiente stream
+        ChaincodeEventsRequest request = mock(ChaincodeEventsRequest.class);
+        when(request.getEvents()).thenAnswer(invocation -> connections.take());
+        ChaincodeEventsRequest.Builder builder = mock(ChaincodeEventsRequest.Builder.class);
+        when(builder.checkpoint(any())).thenReturn(builder);
+        when(builder.build()).thenReturn(request);
+        Network network = mock(Network.class);
+        when(network.newChaincodeEventsRequest("basic")).thenReturn(builder);
+        FabricConnectionManager fabric = mock(FabricConnectionManager.class);
+        when(fabric.getNetwork()).thenReturn(network);
+
+        consumer = new LedgerEventConsumer(fabric, config, new FabricMetrics(new SimpleMeterRegistry()),
+                List.of(handler));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (CountDownLatch latch : handler.blocked.values()) {
+            latch.countDown();
+        }
+        consumer.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void checkpointWaitsForEarlierEventsStillInProgress() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        handler.blocked.put("tx1", release);
+        Eventos stream = connect();
+        consumer.start();
+        for (int i = 1; i <= 8; i++) {
+            stream.queue.add(event(i, "tx" + i, "r" + i));
+        }
+
+        // los posteriores de otras claves terminan mientras tx1 sigue en curso
+        await(() -> handler.handled("tx8") == 1 || handler.handled("tx7") == 1, "eventos posteriores procesados");
+        Thread.sleep(50);
+        assertNull(checkpointTx());
+
+        release.countDown();
+        await(() -> "tx8".equals(checkpointTx()), "checkpoint en tx8");
+    }
+
+    @Test
+    void failedEventHoldsTheCheckpoint() throws Exception {
+        handler.failuresBeforeSuccess.put("tx2", Integer.MAX_VALUE);
+        Eventos stream = connect();
+        consumer.start();
+        for (int i = 1; i <= 4; i++) {
+            stream.queue.add(event(i, "tx" + i, "r" + i));
+        }
+
+        await(() -> handler.handled("tx4") == 1 && handler.attempts("tx2") == 2, "tx2 agoto los intentos");
+        await(() -> "tx1".equals(checkpointTx()), "checkpoint en tx1");
+        Thread.sleep(100);
+        assertEquals("tx1", checkpointTx());
+        assertEquals(2, handler.attempts("tx2"));
+
+        consumer.stop();
+        assertEquals("tx1", checkpointTx());
+    }
+
+    @Test
+    void retriedHandlerLetsTheCheckpointAdvance() throws Exception {
+        handler.failuresBeforeSuccess.put("tx2", 1);
+        Eventos stream = connect();
+        consumer.start();
+        for (int i = 1; i <= 3; i++) {
+            stream.queue.add(event(i, "tx" + i, "r" + i));
+        }
+
+        await(() -> "tx3".equals(checkpointTx()), "checkpoint en tx3");
+        assertEquals(2, handler.attempts("tx2"));
+        assertEquals(1, handler.handled("tx2"));
+    }
+
+    /**
+     * Al reconectar se retoma desde el checkpoint: el evento fallido y los
+     * posteriores se vuelven a entregar.
+     */
+    @Test
+    void failedEventIsDeliveredAgainAfterReconnecting() throws Exception {
+        handler.failuresBeforeSuccess.put("tx2", 2);
+        Eventos first = connect();
+        consumer.start();
+        for (int i = 1; i <= 3; i++) {
+            first.queue.add(event(i, "tx" + i, "r" + i));
+        }
+        await(() -> handler.handled("tx3") == 1 && handler.attempts("tx2") == 2, "tx2 agoto los intentos");
+        await(() -> "tx1".equals(checkpointTx()), "checkpoint en tx1");
+
+        // el peer vuelve a mandar desde despues del checkpoint
+        Eventos second = connect();
+        second.queue.add(event(2, "tx2", "r2"));
+        second.queue.add(event(3, "tx3", "r3"));
+        first.close();
+
+        await(() -> "tx3".equals(checkpointTx()), "checkpoint en tx3");
+        assertEquals(1, handler.handled("tx2"));
+        assertEquals(2, handler.handled("tx3"));
+    }
+
+    private Eventos connect() {
+        Eventos stream = new Eventos();
+        connections.add(stream);
+        return stream;
+    }
+
+    private ChaincodeEvent event(long block, String tx, String id) {
+        ChaincodeEvent event = mock(ChaincodeEvent.class);
+        when(event.getBlockNumber()).thenReturn(block);
+        when(event.getTransactionId()).thenReturn(tx);
+        when(event.getChaincodeName()).thenReturn("basic");
+        when(event.getEventName()).thenReturn("CreateReceta");
+        when(event.getPayload()).thenReturn(("{\"id\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8));
+        return event;
+    }
+
+    private String checkpointTx() {
+        try {
+            JsonNode node = objectMapper.readTree(Files.readAllBytes(checkpoint));
+            JsonNode tx = node == null ? null : node.get("transactionId");
+            return tx == null ? null : tx.asText();
+        } catch (IOException e) {
+            // todavia no existe o se esta escribiendo
+            return null;
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String what) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("No se cumplio a tiempo: " + what);
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.code.hyperledger.fabric;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EcdsaSignerTests {
+
+    @Test
+    void signaturesHaveLowSAndVerify() throws Exception {
+        KeyPair keys = keyPair("secp256r1");
+        BigInteger order = ((ECPrivateKey) keys.getPrivate()).getParams().getOrder();
+        EcdsaSigner signer = (EcdsaSigner) EcdsaSigner.of(keys.getPrivate());
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            byte[] digest = digest(random);
+            byte[] der = signer.sign(digest);
+            BigInteger[] rs = decode(der);
+            assertTrue(rs[1].compareTo(order.shiftRight(1)) <= 0, "s en la mitad alta");
+            assertTrue(verify(keys, digest, der));
+        }
+    }
+
+    @Test
+    void highSIsRewrittenAsNMinusS() throws Exception {
+        rewritesHighS("secp256r1");
+    }
+
+    /**
+     * Con P-521 la secuencia pasa de 127 bytes y el largo va en forma larga (0x81).
+     */
+    @Test
+    void highSIsRewrittenWithLongFormLength() throws Exception {
+        rewritesHighS("secp521r1");
+    }
+
+    @Test
+    void lowSIsReturnedUntouched() throws Exception {
+        KeyPair keys = keyPair("secp256r1");
+        EcdsaSigner signer = (EcdsaSigner) EcdsaSigner.of(keys.getPrivate());
+        byte[] der = signer.sign(digest(new Random(7)));
+        assertSame(der, signer.lowS(der));
+    }
+
+    @Test
+    void malformedDerIsRejected() throws Exception {
+        EcdsaSigner signer = (EcdsaSigner) EcdsaSigner.of(keyPair("secp256r1").getPrivate());
+        assertThrows(SignatureException.class, () -> signer.lowS(new byte[] { 0x31, 0x00 }));
+        assertThrows(SignatureException.class, () -> signer.lowS(new byte[] { 0x30, 0x06, 0x02, 0x01, 0x01, 0x02 }));
+        assertThrows(SignatureException.class, () -> signer.lowS(new byte[] { 0x30, 0x06, 0x02, 0x05, 0x01 }));
+    }
+
+    private static void rewritesHighS(String curve) throws Exception {
+        KeyPair keys = keyPair(curve);
+        BigInteger order = ((ECPrivateKey) keys.getPrivate()).getParams().getOrder();
+        EcdsaSigner signer = (EcdsaSigner) EcdsaSigner.of(keys.getPrivate());
+        Random random = new Random(1);
+        for (int i = 0; i < 50; i++) {
+            byte[] digest = digest(random);
+            byte[] low = signer.sign(digest);
+            BigInteger[] rs = decode(low);
+            // (r, n - s) tambien es una firma valida, con s en la mitad alta
+            byte[] high = encode(rs[0], order.subtract(rs[1]));
+            assertTrue(verify(keys, digest, high));
+
+            byte[] rewritten = signer.lowS(high);
+            assertArrayEquals(low, rewritten);
+            assertTrue(verify(keys, digest, rewritten));
+        }
+    }
+
+    private static KeyPair keyPair(String curve) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec(curve));
+        return generator.generateKeyPair();
+    }
+
+    private static byte[] digest(Random random) throws Exception {
+        byte[] message = new byte[64];
+        random.nextBytes(message);
+        return MessageDigest.getInstance("SHA-256").digest(message);
+    }
+
+    private static boolean verify(KeyPair keys, byte[] digest, byte[] der) throws Exception {
+        Signature signature = Signature.getInstance("NONEwithECDSA");
+        signature.initVerify(keys.getPublic());
+        signature.update(digest);
+        return signature.verify(der);
+    }
+
+    private static BigInteger[] decode(byte[] der) {
+        int[] position = { 1 };
+        length(der, position);
+        BigInteger r = integer(der, position);
+        BigInteger s = integer(der, position);
+        return new BigInteger[] { r, s };
+    }
+
+    private static BigInteger integer(byte[] der, int[] position) {
+        position[0]++;
+        int length = length(der, position);
+        byte[] value = new byte[length];
+        System.arraycopy(der, position[0], value, 0, length);
+        position[0] += length;
+        return new BigInteger(value);
+    }
+
+    private static int length(byte[] der, int[] position) {
+        int first = der[position[0]++] & 0xff;
+        if (first < 0x80) {
+            return first;
+        }
+        int length = 0;
+        for (int i = 0; i < (first & 0x7f); i++) {
+            length = (length << 8) | (der[position[0]++] & 0xff);
+        }
+        return length;
+    }
+
+    private static byte[] encode(BigInteger r, BigInteger s) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (BigInteger value : new BigInteger[] { r, s }) {
+            byte[] bytes = value.toByteArray();
+            body.write(0x02);
+            writeLength(body, bytes.length);
+            body.writeBytes(bytes);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0x30);
+        writeLength(out, body.size());
+        out.writeBytes(body.toByteArray());
+        return out.toByteArray();
+    }
+
+    private static void writeLength(ByteArrayOutputStream out, int length) {
+        if (length >= 0x80) {
+            out.write(0x81);
+        }
+        out.write(length);
+    }
+}
@@ -0,0 +1,144 @@
+package com.code.hyperledger.fabric;
+
+import com.code.hyperledger.configs.FabricConfigProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hyperledger.fabric.client.CommitException;
+import org.hyperledger.fabric.client.EndorseException;
+import org.hyperledger.fabric.client.Status;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KeyedSubmitterTests {
+
+    private static final byte[] OK = "ok".getBytes(StandardCharsets.UTF_8);
+
+    private FabricConnectionManager connections;
+    private SimpleMeterRegistry registry;
+    private KeyedSubmitter submitter;
+
+    @BeforeEach
+    void setUp() {
+        connections = mock(FabricConnectionManager.class);
+        registry = new SimpleMeterRegistry();
+        FabricConfigProperties config = new FabricConfigProperties();
+        config.getConflicts().setMaxAttempts(3);
+        config.getConflicts().setBackoffMs(1);
+        config.getConflicts().setMaxBackoffMs(2);
+        submitter = new KeyedSubmitter(connections, new FabricMetrics(registry), config);
+    }
+
+    @Test
+    void readConflictsAreResubmittedUntilCommitted() throws Exception {
+        CommitException conflict = commitFailure(TxValidationCode.MVCC_READ_CONFLICT);
+        CommitException phantom = commitFailure(TxValidationCode.PHANTOM_READ_CONFLICT);
+        when(connections.submitTransaction("EntregarReceta", "r1")).thenThrow(conflict, phantom).thenReturn(OK);
+
+        assertArrayEquals(OK, submitter.submit("r1", "EntregarReceta", "r1"));
+        verify(connections, times(3)).submitTransaction("EntregarReceta", "r1");
+        assertEquals(2, conflicts("resubmitted"));
+        assertEquals(1, conflicts("resolved"));
+        assertEquals(0, submitter.getActiveKeys());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        CommitException conflict = commitFailure(TxValidationCode.MVCC_READ_CONFLICT);
+        when(connections.submitTransaction("FirmarReceta", "r1", "firma")).thenThrow(conflict);
+
+        assertSame(conflict, assertThrows(CommitException.class,
+                () -> submitter.submit("r1", "FirmarReceta", "r1", "firma")));
+        verify(connections, times(3)).submitTransaction("FirmarReceta", "r1", "firma");
+        assertEquals(2, conflicts("resubmitted"));
+        assertEquals(1, conflicts("exhausted"));
+        assertEquals(0, submitter.getActiveKeys());
+    }
+
+    @Test
+    void otherValidationCodesAreNotResubmitted() throws Exception {
+        CommitException rejected = commitFailure(TxValidationCode.ENDORSEMENT_POLICY_FAILURE);
+        when(connections.submitTransaction("EntregarReceta", "r1")).thenThrow(rejected);
+
+        assertSame(rejected, assertThrows(CommitException.class, () -> submitter.submit("r1", "EntregarReceta", "r1")));
+        verify(connections, times(1)).submitTransaction("EntregarReceta", "r1");
+        assertEquals(0, conflicts("resubmitted"));
+    }
+
+    /**
+     * Si al reendosar el chaincode rechaza la transicion (p. ej. ya se entrego) sale ese error.
+     */
+    @Test
+    void chaincodeRejectionOnResubmissionIsReturned() throws Exception {
+        EndorseException entregada = new EndorseException("tx2",
+                io.grpc.Status.ABORTED.withDescription("la receta r1 ya fue entregada").asRuntimeException());
+        CommitException conflict = commitFailure(TxValidationCode.MVCC_READ_CONFLICT);
+        when(connections.submitTransaction("EntregarReceta", "r1")).thenThrow(conflict, entregada);
+
+        assertSame(entregada, assertThrows(EndorseException.class,
+                () -> submitter.submit("r1", "EntregarReceta", "r1")));
+        verify(connections, times(2)).submitTransaction("EntregarReceta", "r1");
+        assertEquals(0, submitter.getActiveKeys());
+    }
+
+    @Test
+    void sameKeyRunsOneAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(connections.submitTransaction("EntregarReceta", "r1")).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return OK;
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            CountDownLatch go = new CountDownLatch(1);
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = pool.submit(() -> {
+                    go.await();
+                    return submitter.submit("r1", "EntregarReceta", "r1");
+                });
+            }
+            go.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, maxRunning.get());
+        assertEquals(0, submitter.getActiveKeys());
+    }
+
+    private static CommitException commitFailure(TxValidationCode code) {
+        Status status = mock(Status.class);
+        when(status.getCode()).thenReturn(code);
+        when(status.getTransactionId()).thenReturn("tx1");
+        return new CommitException(status);
+    }
+
+    private double conflicts(String result) {
+        Counter counter = registry.find("fabric.client.conflicts").tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
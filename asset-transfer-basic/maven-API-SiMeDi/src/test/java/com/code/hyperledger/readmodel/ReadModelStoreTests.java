@@ -0,0 +1,205 @@
+package com.code.hyperledger.readmodel;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadModelStoreTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Path directory;
+    private ReadModelStore store;
+
+    @BeforeEach
+    void open() throws IOException {
+        directory = Files.createTempDirectory("readmodel");
+        store = ReadModelStore.open(directory, 1000);
+    }
+
+    @AfterEach
+    void delete() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void pagesMergeEstadosInIdOrder() throws IOException {
+        store.put(ReadModelStore.RECETA, receta("r1", "111", "active"));
+        store.put(ReadModelStore.RECETA, receta("r2", "111", "completed"));
+        store.put(ReadModelStore.RECETA, receta("r3", "111", "cancelled"));
+        store.put(ReadModelStore.RECETA, receta("r4", "111", "active"));
+        store.put(ReadModelStore.RECETA, receta("r5", "111", "completed"));
+        store.put(ReadModelStore.RECETA, receta("r6", "111", "active"));
+        // otro paciente y otro tipo no entran
+        store.put(ReadModelStore.RECETA, receta("r0", "222", "active"));
+        store.put(ReadModelStore.VACUNA, receta("v1", "111", "active"));
+
+        List<String> ids = new ArrayList<>();
+        List<String> bookmarks = new ArrayList<>();
+        String bookmark = "";
+        while (true) {
+            JsonNode page = page(List.of("completed", "active"), 2, bookmark);
+            if (page.path("componentes").size() == 0) {
+                assertEquals(bookmark, page.path("bookmark").asText());
+                break;
+            }
+            page.path("componentes").forEach(doc -> ids.add(doc.path("id").asText()));
+            bookmark = page.path("bookmark").asText();
+            bookmarks.add(bookmark);
+        }
+        assertEquals(List.of("r1", "r2", "r4", "r5", "r6"), ids);
+        assertEquals(List.of("r2", "r5", "r6"), bookmarks);
+    }
+
+    @Test
+    void pagesWithoutEstadosListEveryRecordOfThePatient() throws IOException {
+        store.put(ReadModelStore.RECETA, receta("r2", "111", "completed"));
+        store.put(ReadModelStore.RECETA, receta("r1", "111", "active"));
+        store.put(ReadModelStore.RECETA, receta("r3", "111", "cancelled"));
+
+        JsonNode first = page(null, 2, null);
+        assertEquals(List.of("r1", "r2"), ids(first));
+        JsonNode second = page(null, 2, first.path("bookmark").asText());
+        assertEquals(List.of("r3"), ids(second));
+    }
+
+    @Test
+    void changingEstadoMovesTheRecordBetweenIndexes() throws IOException {
+        store.put(ReadModelStore.RECETA, receta("r1", "111", "active"));
+        store.apply(ReadModelStore.RECETA, receta("r1", "111", "completed"), 10, "tx1");
+
+        assertEquals(List.of(), ids(page(List.of("active"), 10, null)));
+        assertEquals(List.of("r1"), ids(page(List.of("completed"), 10, null)));
+        assertEquals(List.of("r1"), ids(page(List.of("active", "completed"), 10, null)));
+        assertEquals(1, store.count(ReadModelStore.RECETA));
+    }
+
+    @Test
+    void compactionKeepsTheLatestStateAndCheckpoint() throws IOException {
+        store.close();
+        store = ReadModelStore.open(directory, 10);
+        store.put(ReadModelStore.RECETA, receta("r1", "111", "active"));
+        store.put(ReadModelStore.RECETA, receta("r2", "111", "active"));
+        store.markReady();
+        for (int i = 0; i < 30; i++) {
+            store.apply(ReadModelStore.RECETA, receta("r1", "111", i % 2 == 0 ? "completed" : "active"), 100 + i,
+                    "tx" + i);
+        }
+        // compacta cuando el log pasa de 10 lineas y del doble de los registros vivos
+        assertTrue(store.getLines() <= 10, "lineas: " + store.getLines());
+        // el archivo temporal de la compactacion no queda
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+
+        store.close();
+        store = ReadModelStore.open(directory, 10);
+        assertTrue(store.isReady());
+        assertTrue(store.canResume());
+        assertEquals(129, store.getBlockNumber());
+        assertEquals(Optional.of("tx29"), store.getTransactionId());
+        assertEquals(List.of("r1", "r2"), ids(page(List.of("active"), 10, null)));
+        assertEquals(List.of(), ids(page(List.of("completed"), 10, null)));
+    }
+
+    @Test
+    void truncatedLastLineIsDroppedOnOpen() throws IOException {
+        store.put(ReadModelStore.RECETA, receta("r1", "111", "active"));
+        store.markReady();
+        store.apply(ReadModelStore.RECETA, receta("r2", "111", "active"), 7, "tx7");
+        store.close();
+        // corte a mitad de una escritura
+        Files.write(directory.resolve("readmodel.log"),
+                "{\"bloque\":8,\"tx\":\"tx8\",\"tipo\":\"receta\",\"doc\":{\"id\":\"r3\",\"pat".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        store = ReadModelStore.open(directory, 1000);
+        assertEquals(List.of("r1", "r2"), ids(page(null, 10, null)));
+        assertEquals(7, store.getBlockNumber());
+        assertEquals(Optional.of("tx7"), store.getTransactionId());
+        assertTrue(store.isReady());
+
+        // lo que se escribe despues no queda pegado a la linea cortada
+        store.apply(ReadModelStore.RECETA, receta("r3", "111", "active"), 8, "tx8");
+        store.close();
+        store = ReadModelStore.open(directory, 1000);
+        assertEquals(List.of("r1", "r2", "r3"), ids(page(null, 10, null)));
+        assertEquals(Optional.of("tx8"), store.getTransactionId());
+        for (String line : Files.readAllLines(directory.resolve("readmodel.log"))) {
+            objectMapper.readTree(line);
+        }
+    }
+
+    @Test
+    void modelBuiltWithAnOlderSnapshotIsNotReady() throws IOException {
+        store.put(ReadModelStore.RECETA, receta("r1", "111", "active"));
+        store.apply(null, null, 3, "tx3");
+        store.close();
+        // marca de un modelo armado sin las recetas canceladas
+        Files.write(directory.resolve("readmodel.log"), "{\"listo\":true}\n".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        store = ReadModelStore.open(directory, 1000);
+        assertFalse(store.isReady());
+        assertFalse(store.canResume());
+
+        store.markReady();
+        store.close();
+        store = ReadModelStore.open(directory, 1000);
+        assertTrue(store.canResume());
+    }
+
+    @Test
+    void resetStartsFromScratch() throws IOException {
+        store.put(ReadModelStore.RECETA, receta("r1", "111", "active"));
+        store.apply(null, null, 3, "tx3");
+        store.markReady();
+        store.reset();
+        assertFalse(store.isReady());
+        assertFalse(store.canResume());
+        assertEquals(0, store.count(ReadModelStore.RECETA));
+
+        store.close();
+        store = ReadModelStore.open(directory, 1000);
+        assertFalse(store.isReady());
+        assertEquals(0, store.getLines());
+    }
+
+    private ObjectNode receta(String id, String dni, String status) {
+        ObjectNode doc = objectMapper.createObjectNode();
+        doc.put("id", id);
+        doc.put("patientDocumentNumber", dni);
+        doc.put("status", status);
+        return doc;
+    }
+
+    private JsonNode page(List<String> estados, int pageSize, String bookmark) throws IOException {
+        return objectMapper.readTree(store.page(ReadModelStore.RECETA, "111", estados, pageSize, bookmark));
+    }
+
+    private static List<String> ids(JsonNode page) {
+        List<String> ids = new ArrayList<>();
+        page.path("componentes").forEach(doc -> ids.add(doc.path("id").asText()));
+        return ids;
+    }
+}
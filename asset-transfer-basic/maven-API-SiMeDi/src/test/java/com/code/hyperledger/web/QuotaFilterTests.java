@@ -0,0 +1,57 @@
+package com.code.hyperledger.web;
+
+import com.code.hyperledger.configs.QuotaConfigProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuotaFilterTests {
+
+    private QuotaFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        QuotaConfigProperties config = new QuotaConfigProperties();
+        config.setEnabled(true);
+        config.setSubmit(new QuotaConfigProperties.Spec(0.001, 1));
+        config.setQuery(new QuotaConfigProperties.Spec(0.001, 100));
+        filter = new QuotaFilter(config);
+    }
+
+    @Test
+    void submitPathIsChargedToTheSubmitQuota() throws Exception {
+        assertEquals(200, post("/recetas/crear"));
+        assertEquals(429, post("/recetas/crear"));
+    }
+
+    @Test
+    void trailingSlashIsStillASubmit() throws Exception {
+        assertEquals(200, post("/recetas/crear"));
+        assertEquals(429, post("/recetas/crear/"));
+    }
+
+    @Test
+    void doubleSlashesAndPathParametersAreStillASubmit() throws Exception {
+        assertEquals(200, post("//vacunas//crear/lote"));
+        assertEquals(429, post("/vacunas/crear/lote;jsessionid=ABC"));
+    }
+
+    @Test
+    void queriesDoNotUseTheSubmitQuota() throws Exception {
+        assertEquals(200, post("/recetas/crear"));
+        assertEquals(200, post("/recetas/obtener/"));
+        assertEquals(200, post("/recetas/todas"));
+    }
+
+    private int post(String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,98 @@
+package com.code.hyperledger.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long START = 1_000 * SECOND;
+
+    @Test
+    void admitsBurstThenRejectsWithTimeToNextToken() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(START));
+        }
+        assertEquals(SECOND / 10, bucket.tryAcquire(START));
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(START);
+        }
+        long now = START + SECOND / 10;
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(SECOND / 10, bucket.tryAcquire(now));
+    }
+
+    @Test
+    void waitReturnedOnRejectionIsEnough() {
+        TokenBucket bucket = new TokenBucket(3, 1, START);
+        assertEquals(0, bucket.tryAcquire(START));
+        long now = START + SECOND / 7;
+        long wait = bucket.tryAcquire(now);
+        assertTrue(wait > 0);
+        assertTrue(bucket.tryAcquire(now + wait - 1) > 0);
+        assertEquals(0, bucket.tryAcquire(now + wait));
+    }
+
+    @Test
+    void idleTimeDoesNotAccumulateMoreThanBurst() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+        long later = START + 60 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(later));
+        }
+        assertTrue(bucket.tryAcquire(later) > 0);
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        TokenBucket bucket = new TokenBucket(10, 1, START);
+        assertEquals(0, bucket.tryAcquire(START));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bucket.tryAcquire(START) > 0);
+        }
+        assertEquals(0, bucket.tryAcquire(START + SECOND / 10));
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanBurst() throws Exception {
+        TokenBucket bucket = new TokenBucket(1, 50, START);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    if (bucket.tryAcquire(START) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(50, admitted.get());
+    }
+}
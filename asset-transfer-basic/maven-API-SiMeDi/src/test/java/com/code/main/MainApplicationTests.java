@@ -1,9 +1,17 @@
 package com.code.main;
 
+import com.code.hyperledger.App;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
-/*
-@SpringBootTest(classes = MainApplication.class) // Especifica la clase de configuración
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Levanta el contexto completo contra el ledger en memoria (perfil inmemory),
+ * sin peers ni certificados. Sin el consumidor de eventos, que escribe su
+ * checkpoint en data/.
+ */
+@SpringBootTest(classes = App.class, properties = "fabric.events.enabled=false")
+@ActiveProfiles("inmemory")
 class MainApplicationTests {
 
 	@Test
@@ -11,4 +19,3 @@ class MainApplicationTests {
 	}
 
 }
-*/
\ No newline at end of file